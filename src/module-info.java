@@ -1,5 +1,6 @@
 module BFSPuzzleSolver {
     requires transitive javafx.controls;
+    requires java.management;
     exports puzzles.common.solver;
     exports puzzles.astro.gui;
     exports puzzles.astro.model;
@@ -14,8 +14,9 @@ import javafx.stage.FileChooser;
 import puzzles.astro.model.*;
 import puzzles.common.Direction;
 import puzzles.common.Observer;
+import puzzles.astro.solver.AstroPatternDatabase;
+import puzzles.common.solver.AStarEngine;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
 import puzzles.hoppers.model.HoppersConfig;
 import puzzles.hoppers.model.HoppersModel;
 
@@ -102,11 +103,11 @@ public class AstroGUI extends Application implements Observer<AstroModel, String
             update(model, "You already won!");
             return;
         }
-        int oldSelectedEntityX = model.getCurrentConfig().getSelectedEntity().getPositionX();
-        int oldSelectedEntityY = model.getCurrentConfig().getSelectedEntity().getPositionY();
-        boolean success = model.getCurrentConfig().moveSelectedEntity(dir);
-        int newSelectedEntityX = model.getCurrentConfig().getSelectedEntity().getPositionX();
-        int newSelectedEntityY = model.getCurrentConfig().getSelectedEntity().getPositionY();
+        int oldSelectedEntityX = model.getSelectedEntity().getPositionX();
+        int oldSelectedEntityY = model.getSelectedEntity().getPositionY();
+        boolean success = model.moveSelected(dir);
+        int newSelectedEntityX = model.getSelectedEntity().getPositionX();
+        int newSelectedEntityY = model.getSelectedEntity().getPositionY();
 
         if (success) {
             update(model, "Moved from (" + oldSelectedEntityX + ", " + oldSelectedEntityY + ") to (" + newSelectedEntityX + ", " + newSelectedEntityY + ")");
@@ -185,7 +186,7 @@ public class AstroGUI extends Application implements Observer<AstroModel, String
      * @param y The y position
      */
     private void buttonSelected(int x, int y) {
-        boolean success = model.getCurrentConfig().selectEntity(x, y);
+        boolean success = model.select(x, y);
         if (success) {
             update(model, "Selected (" + x + ", " + y + ")");
         }
@@ -200,9 +201,10 @@ public class AstroGUI extends Application implements Observer<AstroModel, String
      */
     public void setupBoardGUI(){
         Goal goal = model.getCurrentConfig().getGoal();
+        Entity[][] grid = model.getCurrentConfig().getGrid();
         for(int row = 0; row < model.getCurrentConfig().getRows(); row++){
             for(int col = 0; col < model.getCurrentConfig().getCols(); col++){
-                Entity current = model.getCurrentConfig().getGrid()[col][row];
+                Entity current = grid[col][row];
                 Button button = new Button();
 
                 button.setBackground(background);
@@ -236,7 +238,10 @@ public class AstroGUI extends Application implements Observer<AstroModel, String
      * @return A Configuration object representing a hint.
      */
     public Configuration getHint() {
-        List<Configuration> solution = Solver.solve(this.model.getCurrentConfig());
+        // robots are only blockers, so search without their names and put them back afterwards
+        AstroConfig current = this.model.getCurrentConfig();
+        List<Configuration> solution = AstroConfig.restoreLabels(current,
+                new AStarEngine(AstroPatternDatabase.forHints(current)).solve(current.canonicalForm()).getPath());
         if (solution != null) {
             if (solution.size() == 1) {
                 return solution.get(0);
@@ -345,11 +350,12 @@ public class AstroGUI extends Application implements Observer<AstroModel, String
             statusLabel.setText(msg);
         Button button = new Button();
         Goal goal = model.getCurrentConfig().getGoal();
+        Entity[][] grid = model.getCurrentConfig().getGrid();
         for (int row = 0; row < model.getCurrentConfig().getRows(); row++) {
             for (int col = 0; col < model.getCurrentConfig().getCols(); col++) {
                 button = buttons[col][row];
                 if (button != null) {
-                    Entity current = model.getCurrentConfig().getGrid()[col][row];
+                    Entity current = grid[col][row];
                     if (goal.getPositionX() == col && goal.getPositionY() == row) {
                         button.setGraphic(new ImageView(goalImage));
                     }
@@ -0,0 +1,215 @@
+package puzzles.astro.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * The parts of an Astro puzzle that never change while it is played: the size of the
+ * grid, where the goal is, and the names of the pieces. Every AstroConfig of a puzzle
+ * shares one board, so a configuration only has to store where its pieces are.
+ * Cells are numbered x * rows + y.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public final class AstroBoard {
+    private final int nRows;
+    private final int nColumns;
+    private final Goal goal;
+    private final String[] names;
+    /** a random key for every piece in every cell, at piece * cells + cell, or null if keys are mixed on demand */
+    private final long[] zobrist;
+    /** the x and y coordinate of every cell, so hot loops need not divide, or null without tables */
+    private final char[] cellX;
+    private final char[] cellY;
+    /** true if robots are told apart only by where they are, not by name */
+    private final boolean unlabeled;
+    /** the same board with unlabeled robots, made on first use */
+    private AstroBoard unlabeledBoard;
+
+    /**
+     * Create a board.
+     * @param nRows The number of rows.
+     * @param nColumns The number of columns.
+     * @param goal The goal.
+     * @param names The name of every piece, astronaut first.
+     */
+    AstroBoard(int nRows, int nColumns, Goal goal, String[] names) {
+        this(nRows, nColumns, goal, names, true);
+    }
+
+    /**
+     * Create a board, with or without tables over its cells. The tables hold a key for
+     * every piece in every cell, which for a grid a thousand cells on a side and a few dozen
+     * pieces is hundreds of megabytes; without them keys are mixed from the piece and cell
+     * numbers when asked for, and coordinates are divided out.
+     * @param nRows The number of rows.
+     * @param nColumns The number of columns.
+     * @param goal The goal.
+     * @param names The name of every piece, astronaut first.
+     * @param tables true to fill in the tables, false for a board too big for them.
+     */
+    AstroBoard(int nRows, int nColumns, Goal goal, String[] names, boolean tables) {
+        this.nRows = nRows;
+        this.nColumns = nColumns;
+        this.goal = goal;
+        this.names = names.clone();
+        if (tables) {
+            this.zobrist = new long[names.length * nRows * nColumns];
+            // a fixed seed gives the same keys, and so the same hash codes, on every run
+            SplittableRandom random = new SplittableRandom(nRows * 31L + nColumns);
+            for (int i = 0; i < zobrist.length; i++) {
+                zobrist[i] = random.nextLong();
+            }
+            this.cellX = new char[nRows * nColumns];
+            this.cellY = new char[nRows * nColumns];
+            for (int cell = 0; cell < cellX.length; cell++) {
+                cellX[cell] = (char) (cell / nRows);
+                cellY[cell] = (char) (cell % nRows);
+            }
+        } else {
+            this.zobrist = null;
+            this.cellX = null;
+            this.cellY = null;
+        }
+        this.unlabeled = false;
+    }
+
+    /**
+     * Create the unlabeled version of a board.
+     * @param labeled The board with named robots.
+     */
+    private AstroBoard(AstroBoard labeled) {
+        this.nRows = labeled.nRows;
+        this.nColumns = labeled.nColumns;
+        this.goal = labeled.goal;
+        this.names = labeled.names;
+        this.zobrist = labeled.zobrist;
+        this.cellX = labeled.cellX;
+        this.cellY = labeled.cellY;
+        this.unlabeled = true;
+        this.unlabeledBoard = this;
+    }
+
+    /**
+     * Get the version of this board where robots are only blockers, with no identity of
+     * their own. Configurations on it keep their robot cells sorted, so two configurations
+     * that only differ in which robot is where are the same state.
+     * @return The unlabeled board
+     */
+    public synchronized AstroBoard unlabeled() {
+        if (unlabeledBoard == null) {
+            unlabeledBoard = new AstroBoard(this);
+        }
+        return unlabeledBoard;
+    }
+
+    /**
+     * Check if robots on this board are told apart only by where they are.
+     * @return true for an unlabeled board
+     */
+    public boolean isUnlabeled() {
+        return unlabeled;
+    }
+
+    /**
+     * Get the number of rows in the grid.
+     * @return The number of rows
+     */
+    public int getRows() {
+        return nRows;
+    }
+
+    /**
+     * Get the number of columns in the grid.
+     * @return The number of columns
+     */
+    public int getCols() {
+        return nColumns;
+    }
+
+    /**
+     * Get the goal.
+     * @return The goal object
+     */
+    public Goal getGoal() {
+        return goal;
+    }
+
+    /**
+     * Get the number of pieces, the astronaut included.
+     * @return The number of pieces
+     */
+    public int getPieceCount() {
+        return names.length;
+    }
+
+    /**
+     * Get the name of a piece.
+     * @param piece The piece number, 0 being the astronaut.
+     * @return The name
+     */
+    public String getName(int piece) {
+        return names[piece];
+    }
+
+    /**
+     * Get the Zobrist key of a piece standing in a cell. The key of a configuration is the
+     * exclusive or of the keys of all its pieces, so moving a piece changes it by two lookups.
+     * On an unlabeled board every robot uses the keys of the first robot. A board without
+     * tables mixes the key from the piece and cell numbers, the way {@link SplittableRandom}
+     * mixes its seed, so it is just as fixed from run to run.
+     * @param piece The piece number.
+     * @param cell The cell number.
+     * @return The key
+     */
+    public long zobrist(int piece, int cell) {
+        if (unlabeled && piece > 1) {
+            piece = 1;
+        }
+        long index = (long) piece * nRows * nColumns + cell;
+        if (zobrist == null) {
+            long z = (nRows * 31L + nColumns) + (index + 1) * 0x9e3779b97f4a7c15L;
+            z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+            z = (z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L;
+            return z ^ (z >>> 32);
+        }
+        return zobrist[(int) index];
+    }
+
+    /**
+     * Get the number of a cell.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The cell number
+     */
+    public int cellOf(int x, int y) {
+        return x * nRows + y;
+    }
+
+    /**
+     * Get the x coordinate of a cell.
+     * @param cell The cell number.
+     * @return The x coordinate
+     */
+    public int xOf(int cell) {
+        return cellX != null ? cellX[cell] : cell / nRows;
+    }
+
+    /**
+     * Get the y coordinate of a cell.
+     * @param cell The cell number.
+     * @return The y coordinate
+     */
+    public int yOf(int cell) {
+        return cellY != null ? cellY[cell] : cell % nRows;
+    }
+
+    /**
+     * Check if a coordinate is on the grid.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return true if it is inside the grid
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < nColumns && y < nRows;
+    }
+}
@@ -0,0 +1,62 @@
+package puzzles.astro.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.StateCodec;
+
+/**
+ * Encodes the AstroConfigs of one puzzle as fixed-size records: the cell of every
+ * piece, two bytes each, in the order of the board's pieces.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public class AstroCodec implements StateCodec {
+    private final AstroBoard board;
+
+    /**
+     * Create a codec for the puzzle a configuration belongs to.
+     * @param template Any configuration of the puzzle.
+     */
+    public AstroCodec(AstroConfig template) {
+        this.board = template.getBoard();
+    }
+
+    /**
+     * Get the size of an encoded configuration.
+     * @return Two bytes per piece.
+     */
+    @Override
+    public int recordSize() {
+        return board.getPieceCount() * 2;
+    }
+
+    /**
+     * Write the cell of every piece.
+     * @param config The AstroConfig to encode.
+     * @param dst The array to write to.
+     * @param offset Where in the array the record starts.
+     */
+    @Override
+    public void encode(Configuration config, byte[] dst, int offset) {
+        AstroConfig astroConfig = (AstroConfig) config;
+        for (int piece = 0; piece < board.getPieceCount(); piece++) {
+            int cell = astroConfig.getCell(piece);
+            dst[offset + piece * 2] = (byte) (cell >>> 8);
+            dst[offset + piece * 2 + 1] = (byte) cell;
+        }
+    }
+
+    /**
+     * Rebuild an AstroConfig from the cell of every piece.
+     * @param src The array to read from.
+     * @param offset Where in the array the record starts.
+     * @return The decoded AstroConfig.
+     */
+    @Override
+    public Configuration decode(byte[] src, int offset) {
+        char[] cells = new char[board.getPieceCount()];
+        for (int piece = 0; piece < cells.length; piece++) {
+            cells[piece] = (char) (((src[offset + piece * 2] & 0xFF) << 8) | (src[offset + piece * 2 + 1] & 0xFF));
+        }
+        return new AstroConfig(board, cells);
+    }
+}
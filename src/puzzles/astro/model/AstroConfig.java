@@ -1,117 +1,148 @@
 package puzzles.astro.model;
 
-import puzzles.astro.solver.Astro;
 import puzzles.common.Direction;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.GoalConfiguration;
+import puzzles.common.solver.MutableConfiguration;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 
 /**
- * Represents an instance of a configuration for the Astro game.
+ * Represents an instance of a configuration for the Astro game. A configuration only
+ * stores the cell of each piece; everything else lives in the {@link AstroBoard} that all
+ * configurations of a puzzle share.
  *
  * @author the somosas (Kushal, Michael, Soban)
  */
-public class AstroConfig implements Configuration{
+public class AstroConfig implements MutableConfiguration, GoalConfiguration {
     /** a cell that has not been assigned a value yet */
     private final static char EMPTY = '.';
-    private static int nRows;
-    private static int nColumns;
-    private static int nRobots;
-
-    private Astronaut astro;
-    private Robot[] robots;
-    private static Goal goal;
-
-    private Entity[][] grid;
-    private static List<Entity> entityList;
-    public static Entity selectedEntity;
+    /** the directions a piece can slide in, in the order moves are listed */
+    private final static Direction[] DIRECTIONS = {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST};
+    /** the stop of a slide that would take a piece off the grid */
+    private final static char NO_STOP = Character.MAX_VALUE;
+    /**
+     * the longest line whose occupancy mask fits in one word; up to it, working the stops out
+     * from scratch is cheaper than deriving them from the parent's
+     */
+    private final static int ONE_WORD_LINE = 64;
+    /** the most cells a grid can have for its cell numbers to fit in a char below {@link #NO_STOP} */
+    public final static int MAX_CELLS = NO_STOP;
+
+    /** the fixed parts of the puzzle, shared by all its configurations */
+    private final AstroBoard board;
+    /** the cell of every piece, in the order of the board's names */
+    private final char[] cells;
+    /** the Zobrist key of the piece cells, kept up to date by every move */
+    private long key;
+    /**
+     * where every piece comes to rest when it slides in every direction, at
+     * piece * 4 + direction, or {@link #NO_STOP}. It is worked out when first needed, and
+     * moves made in place keep it up to date.
+     */
+    private char[] stops;
+    /**
+     * the stops of the configuration this one is a neighbor of, until its own are derived
+     * from them; most neighbors turn out to be duplicates and are never expanded, so they
+     * never pay for it
+     */
+    private char[] parentStops;
+    /** the piece number the moved piece had in the parent, and the cells it moved between */
+    private char movedPiece, movedFrom, movedTo;
 
     public int getNRows() {
-        return nRows;
+        return board.getRows();
     }
 
     public int getNColumns() {
-        return nColumns;
+        return board.getCols();
     }
 
+    /**
+     * Build a grid of Entity objects showing where every piece is. The grid is made
+     * fresh on every call, so changing it does not change this configuration.
+     * @return The grid, indexed [x][y].
+     */
     public Entity[][] getGrid() {
+        Entity[][] grid = new Entity[board.getCols()][board.getRows()];
+        for (int piece = 0; piece < cells.length; piece++) {
+            int x = board.xOf(cells[piece]);
+            int y = board.yOf(cells[piece]);
+            grid[x][y] = entityOf(piece, x, y);
+        }
         return grid;
     }
+
     /**
-     * Parse a string that follows the structure:
-     * character x,y.
-     * @param line The line that we are parsing.
+     * Get the board this configuration is played on.
+     * @return The board
      */
-    private Entity ParseEntity(String[] line) {
-        String name = line[0];
-        String[] goal = line[1].split(",");
-        int y = Integer.parseInt(goal[0]);
-        int x = Integer.parseInt(goal[1]);
-
-        if (name.charAt(0) == 'A') {
-            Astronaut astro = new Astronaut(name, x, y);
-            setLocation(x, y, astro);
-            entityList.add(astro);
-            return astro;
-        }
-        else if (name.charAt(0) == '*') {
-            Goal g = new Goal(name, x, y);
-            //this.grid[x][y] = g;
-            return g;
-        }
+    public AstroBoard getBoard() {
+        return board;
+    }
 
-        Robot robot = new Robot(name, x, y);
-        setLocation(x, y, robot);
-        return robot;
+    /**
+     * Get the cell a piece is in.
+     * @param piece The piece number, 0 being the astronaut.
+     * @return The cell number
+     */
+    public int getCell(int piece) {
+        return cells[piece];
     }
 
     /**
-     * Select an entity, given x and y coordinates.
+     * Find the piece in a cell.
      * @param x The x coordinate.
      * @param y The y coordinate.
-     * @return true, if a valid entity was found and selected.
+     * @return The piece number, 0 being the astronaut, or -1 if the cell is empty or off the grid.
      */
-    public boolean selectEntity(int x, int y){
-        if (x < 0 || y < 0 || x > nColumns - 1 || y > nRows - 1) {
-            return false;
+    public int pieceAt(int x, int y) {
+        if (!board.contains(x, y)) {
+            return -1;
         }
-        if (grid[x][y] != null && !(grid[x][y] instanceof Goal)) {
-            selectedEntity = grid[x][y];
-            return true;
+        int cell = board.cellOf(x, y);
+        for (int piece = 0; piece < cells.length; piece++) {
+            if (cells[piece] == cell) {
+                return piece;
+            }
         }
-        return false;
+        return -1;
     }
 
     /**
-     * Get the goal.
-     * @return The goal object
+     * Get the astronaut.
+     * @return The astronaut object
      */
-    public Goal getGoal() {
-        return goal;
+    public Astronaut getAstronaut() {
+        return (Astronaut) getEntity(0);
     }
 
     /**
-     * Move the selected entity in a given direction.
-     * @param dir The direction to move the entity in.
-     * @return Whether the entity was removed.
+     * Get the goal.
+     * @return The goal object
      */
-    public boolean moveSelectedEntity(Direction dir) {
-        return moveEntity(selectedEntity, dir);
+    public Goal getGoal() {
+        return board.getGoal();
     }
 
     /**
-     * Get the selected entity object.
-     * @return The selected entity.
+     * Get an Entity object for a piece.
+     * @param piece The piece number, 0 being the astronaut.
+     * @return An Astronaut or Robot at the piece's current position.
      */
-    public Entity getSelectedEntity() {
-        return selectedEntity;
+    public Entity getEntity(int piece) {
+        return entityOf(piece, board.xOf(cells[piece]), board.yOf(cells[piece]));
     }
 
     /**
@@ -121,49 +152,227 @@ public class AstroConfig implements Configuration{
      * @return true if successful
      */
     public boolean moveEntity(Entity entity, Direction dir) {
-        int currentEntityPositionX = entity.getPositionX();
-        int currentEntityPositionY = entity.getPositionY();
-
         if (entity == null || entity instanceof Goal) {
             return false;
         }
+        for (int piece = 0; piece < cells.length; piece++) {
+            if (board.getName(piece).equals(entity.getName())) {
+                return movePiece(piece, dir);
+            }
+        }
+        return false;
+    }
 
-        if (dir == Direction.WEST) {
-            for (int i = currentEntityPositionX - 1; i >= 0; i--) {
-                if (this.grid[i][currentEntityPositionY] != null && !(this.grid[i][currentEntityPositionY] instanceof Goal)) {
-                    this.grid[currentEntityPositionX][currentEntityPositionY] = null;
-                    setLocation(i + 1, currentEntityPositionY, entity);
-                    return true;
-                }
+    /**
+     * Slide a piece in a given direction until it stops against another piece.
+     * @param piece The piece number.
+     * @param dir The direction to move it in.
+     * @return true if another piece stops it, false if it would fly off the grid
+     */
+    public boolean movePiece(int piece, Direction dir) {
+        int stop = getStops()[piece * DIRECTIONS.length + dir.ordinal()];
+        if (stop == NO_STOP) {
+            return false;
+        }
+        moveCell(cells[piece], stop);
+        return true;
+    }
+
+    /**
+     * Find where a piece sliding in a given direction comes to rest, which is the cell just
+     * before the nearest other piece in its way.
+     * @param piece The piece number.
+     * @param dir The direction to slide in.
+     * @param occupancy The occupancy masks of this configuration.
+     * @return The cell it stops in, which is its own cell if the blocker is right next to
+     * it, or -1 if nothing stops it before the edge of the grid.
+     */
+    private int slideStop(int piece, Direction dir, Occupancy occupancy) {
+        int nRows = board.getRows();
+        int x = cells[piece] / nRows;
+        int y = cells[piece] % nRows;
+        boolean vertical = dir == Direction.NORTH || dir == Direction.SOUTH;
+        boolean backwards = dir == Direction.NORTH || dir == Direction.WEST;
+        int nearest = backwards ? occupancy.before(vertical, x, y) : occupancy.after(vertical, x, y);
+        if (nearest < 0) {
+            return -1;
+        }
+        int stop = backwards ? nearest + 1 : nearest - 1;
+        return vertical ? x * nRows + stop : stop * nRows + y;
+    }
+
+    /**
+     * Get the stop of every piece in every direction, deriving them from the parent's or
+     * working them out from scratch the first time.
+     * @return The stops, at piece * 4 + direction.
+     */
+    private char[] getStops() {
+        char[] result = stops;
+        if (result != null) {
+            return result;
+        }
+        char[] parent = parentStops;
+        int nDirections = DIRECTIONS.length;
+        if (parent != null) {
+            // on an unlabeled board the pieces between the moved piece's old and new number shifted by one
+            int moved = pieceIn(movedTo);
+            result = new char[parent.length];
+            if (moved == movedPiece) {
+                System.arraycopy(parent, 0, result, 0, parent.length);
             }
-        } else if (dir == Direction.EAST) {
-            for (int i = currentEntityPositionX + 1; i < nColumns; i++) {
-                if (this.grid[i][currentEntityPositionY] != null && !(this.grid[i][currentEntityPositionY] instanceof Goal)) {
-                    this.grid[currentEntityPositionX][currentEntityPositionY] = null;
-                    setLocation(i - 1, currentEntityPositionY, entity);
-                    return true;
+            for (int piece = 0; moved != movedPiece && piece < cells.length; piece++) {
+                int before = piece;
+                if (piece == moved) {
+                    before = movedPiece;
+                } else if (movedPiece < moved && piece >= movedPiece && piece < moved) {
+                    before = piece + 1;
+                } else if (moved < movedPiece && piece > moved && piece <= movedPiece) {
+                    before = piece - 1;
                 }
+                System.arraycopy(parent, before * nDirections, result, piece * nDirections, nDirections);
             }
-        } else if (dir == Direction.NORTH) {
-            for (int i = currentEntityPositionY - 1; i >= 0; i--) {
-                if (this.grid[currentEntityPositionX][i] != null && !(this.grid[currentEntityPositionX][i] instanceof Goal)) {
-                    this.grid[currentEntityPositionX][currentEntityPositionY] = null;
-                    setLocation(currentEntityPositionX, i + 1, entity);
-                    return true;
+            updateStops(result, moved, movedFrom, movedTo);
+            parentStops = null;
+        } else {
+            Occupancy occupancy = new Occupancy(board, cells);
+            result = new char[cells.length * nDirections];
+            for (int piece = 0; piece < cells.length; piece++) {
+                for (int d = 0; d < nDirections; d++) {
+                    int stop = slideStop(piece, DIRECTIONS[d], occupancy);
+                    result[piece * nDirections + d] = stop < 0 ? NO_STOP : (char) stop;
                 }
             }
         }
-        else if (dir == Direction.SOUTH) {
-            for (int i = currentEntityPositionY + 1; i < nRows; i++) {
-                if (this.grid[currentEntityPositionX][i] != null && !(this.grid[currentEntityPositionX][i] instanceof Goal)) {
-                    this.grid[currentEntityPositionX][currentEntityPositionY] = null;
-                    setLocation(currentEntityPositionX, i - 1, entity);
-                    return true;
+        stops = result;
+        return result;
+    }
+
+    /**
+     * Bring the stops up to date after a piece has moved. A slide stops just before the
+     * nearest piece ahead of it, so taking the moved piece out of its old cell sends every
+     * slide that stopped against it on to wherever the moved piece itself would have stopped
+     * going that way, and putting it in its new cell cuts short every slide that passes it.
+     * The moved piece is taken along a line whose cells in between are empty, which is true
+     * of a move taken back as well as of a slide.
+     * @param stops The stops from before the move, with the moved piece's under its new number.
+     * @param moved The number of the piece that moved.
+     * @param from The cell it left.
+     * @param to The cell it moved to.
+     */
+    private void updateStops(char[] stops, int moved, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        int nRows = board.getRows();
+        int nDirections = DIRECTIONS.length;
+        int fromX = board.xOf(from);
+        int fromY = board.yOf(from);
+        int toX = board.xOf(to);
+        int toY = board.yOf(to);
+        for (int piece = 0; piece < cells.length; piece++) {
+            int x = board.xOf(cells[piece]);
+            int y = board.yOf(cells[piece]);
+            if (piece == moved || x != fromX && x != toX && y != fromY && y != toY) {
+                continue;
+            }
+            for (int d = 0; d < nDirections; d++) {
+                boolean vertical = DIRECTIONS[d] == Direction.NORTH || DIRECTIONS[d] == Direction.SOUTH;
+                int step = DIRECTIONS[d] == Direction.NORTH || DIRECTIONS[d] == Direction.WEST ? -1 : 1;
+                int index = piece * nDirections + d;
+                int pos = vertical ? y : x;
+                // the moved piece's own stops are not touched until the end, so they are still the old ones
+                if ((vertical ? fromX == x : fromY == y) && stops[index] != NO_STOP &&
+                        along(stops[index], vertical) == (vertical ? fromY : fromX) - step) {
+                    stops[index] = stops[moved * nDirections + d];
+                }
+                int toAlong = vertical ? toY : toX;
+                if ((vertical ? toX == x : toY == y) && (toAlong - pos) * step > 0 &&
+                        (stops[index] == NO_STOP || (along(stops[index], vertical) - toAlong) * step >= 0)) {
+                    stops[index] = (char) (vertical ? x * nRows + toAlong - step : (toAlong - step) * nRows + y);
                 }
             }
         }
+        // going back the moved piece retraces empty cells, and any other way has to be looked for,
+        // since a move taken back leaves it where no piece need be right ahead
+        boolean vertical = fromX == toX;
+        boolean forwards = to > from;
+        for (int d = 0; d < nDirections; d++) {
+            Direction dir = DIRECTIONS[d];
+            boolean back = vertical == (dir == Direction.NORTH || dir == Direction.SOUTH) &&
+                    forwards != (dir == Direction.SOUTH || dir == Direction.EAST);
+            if (!back) {
+                stops[moved * nDirections + d] = scanStop(moved, dir);
+            }
+        }
+    }
 
-        return false;
+    /**
+     * Get the position of a cell along the line a slide is on.
+     * @param cell The cell number.
+     * @param vertical true for a slide along a column, false for one along a row.
+     * @return The y coordinate for a column and the x coordinate for a row.
+     */
+    private int along(int cell, boolean vertical) {
+        return vertical ? board.yOf(cell) : board.xOf(cell);
+    }
+
+    /**
+     * Find the piece in a cell.
+     * @param cell The cell number.
+     * @return The piece number, or -1 if the cell is empty.
+     */
+    private int pieceIn(int cell) {
+        for (int piece = 0; piece < cells.length; piece++) {
+            if (cells[piece] == cell) {
+                return piece;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find where a piece sliding in a given direction comes to rest by looking at every other
+     * piece, which for the few pieces a move touches is cheaper than building occupancy masks.
+     * @param piece The piece number.
+     * @param dir The direction to slide in.
+     * @return The cell it stops in, or {@link #NO_STOP} if nothing stops it.
+     */
+    private char scanStop(int piece, Direction dir) {
+        int x = board.xOf(cells[piece]);
+        int y = board.yOf(cells[piece]);
+        boolean vertical = dir == Direction.NORTH || dir == Direction.SOUTH;
+        boolean backwards = dir == Direction.NORTH || dir == Direction.WEST;
+        int line = vertical ? x : y;
+        int pos = vertical ? y : x;
+        int nearest = -1;
+        for (char cell : cells) {
+            if ((vertical ? board.xOf(cell) : board.yOf(cell)) != line) {
+                continue;
+            }
+            int at = along(cell, vertical);
+            if (backwards ? at < pos && at > nearest : at > pos && (nearest < 0 || at < nearest)) {
+                nearest = at;
+            }
+        }
+        if (nearest < 0) {
+            return NO_STOP;
+        }
+        int stop = backwards ? nearest + 1 : nearest - 1;
+        return (char) (vertical ? board.cellOf(x, stop) : board.cellOf(stop, y));
+    }
+
+    /**
+     * Make an Entity object for a piece.
+     * @param piece The piece number, 0 being the astronaut.
+     * @param x Its x coordinate.
+     * @param y Its y coordinate.
+     * @return An Astronaut for piece 0 and a Robot for the rest.
+     */
+    private Entity entityOf(int piece, int x, int y) {
+        if (piece == 0) {
+            return new Astronaut(board.getName(piece), x, y);
+        }
+        return new Robot(board.getName(piece), x, y);
     }
 
     /**
@@ -173,41 +382,94 @@ public class AstroConfig implements Configuration{
      */
     public AstroConfig(String filename) throws IOException {
         try (BufferedReader in = new BufferedReader(new FileReader(filename))){
-            entityList = new ArrayList<>();
-
-            String line;
             String[] firstLine = in.readLine().split("\\s+");
-            nRows = Integer.parseInt(firstLine[0]);
-            nColumns = Integer.parseInt(firstLine[1]);
-            grid = new Entity[nColumns][nRows];
+            int nRows = Integer.parseInt(firstLine[0]);
+            int nColumns = Integer.parseInt(firstLine[1]);
+            if ((long) nRows * nColumns > MAX_CELLS) {
+                throw new IOException("A " + nRows + "x" + nColumns + " grid is too big, load it as a SparseAstroConfig");
+            }
 
             String[] goalLine = in.readLine().split("\\s+");
-            goal = (Goal) ParseEntity(goalLine);
+            Goal goal = new Goal(goalLine[0], parseX(goalLine), parseY(goalLine));
 
             String[] astronautLine = in.readLine().split("\\s+");
-            astro = (Astronaut) ParseEntity(astronautLine);
-
-            nRobots = Integer.parseInt(in.readLine());
-            robots = new Robot[nRobots];
+            int nRobots = Integer.parseInt(in.readLine().trim());
+            String[] names = new String[nRobots + 1];
+            this.cells = new char[nRobots + 1];
+            names[0] = astronautLine[0];
+            cells[0] = (char) (parseX(astronautLine) * nRows + parseY(astronautLine));
 
-            for (int i = 0; i < nRobots; i++) {
+            for (int i = 1; i <= nRobots; i++) {
                 String[] robotLine = in.readLine().split("\\s+");
-                Robot r = (Robot)ParseEntity(robotLine);
-                robots[i] = r;
+                names[i] = robotLine[0];
+                cells[i] = (char) (parseX(robotLine) * nRows + parseY(robotLine));
             }
 
-            selectedEntity = astro;
+            this.board = new AstroBoard(nRows, nColumns, goal, names);
+            this.key = computeKey();
         }
     }
 
+    /**
+     * Load a puzzle as whichever kind of configuration suits the size of its grid: an
+     * AstroConfig if it has at most {@link #MAX_CELLS} cells, and a {@link SparseAstroConfig}
+     * for anything bigger.
+     * @param filename The filename to load it from.
+     * @return The configuration
+     * @throws IOException
+     */
+    public static Configuration load(String filename) throws IOException {
+        String[] firstLine;
+        try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+            firstLine = in.readLine().split("\\s+");
+        }
+        long nCells = (long) Integer.parseInt(firstLine[0]) * Integer.parseInt(firstLine[1]);
+        if (nCells > MAX_CELLS) {
+            return new SparseAstroConfig(filename);
+        }
+        return new AstroConfig(filename);
+    }
+
+    /**
+     * Parse the x coordinate of a line that follows the structure:
+     * name row,column.
+     * @param line The line that we are parsing, split on whitespace.
+     * @return The column
+     */
+    static int parseX(String[] line) {
+        return Integer.parseInt(line[1].split(",")[1]);
+    }
+
+    /**
+     * Parse the y coordinate of a line that follows the structure:
+     * name row,column.
+     * @param line The line that we are parsing, split on whitespace.
+     * @return The row
+     */
+    static int parseY(String[] line) {
+        return Integer.parseInt(line[1].split(",")[0]);
+    }
+
     /**
      * Create a copy of an AstroConfig.
      * @param original The original AstroConfig to copy from.
      */
     public AstroConfig(AstroConfig original){
-        this.grid = deepCopyGrid(original.grid);
-        this.astro = (Astronaut) this.grid[original.astro.getPositionX()][original.astro.getPositionY()];//new Astronaut("A", original.astro.getPositionX(), original.astro.getPositionY());
+        this.board = original.board;
+        this.cells = original.cells.clone();
+        this.key = original.key;
+    }
 
+    /**
+     * Create an AstroConfig from the cell of every piece, as done when
+     * decoding a stored configuration.
+     * @param board The board of the puzzle.
+     * @param cells The cell of every piece, in the order of the board's names.
+     */
+    AstroConfig(AstroBoard board, char[] cells) {
+        this.board = board;
+        this.cells = cells;
+        this.key = computeKey();
     }
 
     /**
@@ -216,33 +478,8 @@ public class AstroConfig implements Configuration{
      */
     @Override
     public boolean isSolution() {
-        return astro.getPositionX() == goal.getPositionX() &&
-                astro.getPositionY() == goal.getPositionY();
-    }
-
-    /**
-     * A helper function to deepcopy the grid.
-     * @param originalGrid The original grid to copy.
-     * @return A new grid.
-     */
-    private Entity[][] deepCopyGrid(Object[][] originalGrid) {
-        Entity[][] newGrid = new Entity[originalGrid.length][];
-        for (int i = 0; i < originalGrid.length; i++) {
-            newGrid[i] = new Entity[originalGrid[i].length];
-            for (int j = 0; j < originalGrid[i].length; j++) {
-                if (originalGrid[i][j] instanceof Astronaut) {
-                    Astronaut originalAstro = (Astronaut) originalGrid[i][j];
-                    newGrid[i][j] = new Astronaut("A", originalAstro.getPositionX(), originalAstro.getPositionY());
-                } else if (originalGrid[i][j] instanceof Robot) {
-                    Robot originalRobot = (Robot) originalGrid[i][j];
-                    newGrid[i][j] = new Robot(originalRobot.getName(), originalRobot.getPositionX(), originalRobot.getPositionY());
-                }
-                else {
-                    newGrid[i][j] = null;
-                }
-            }
-        }
-        return newGrid;
+        Goal goal = board.getGoal();
+        return cells[0] == board.cellOf(goal.getPositionX(), goal.getPositionY());
     }
 
     /**
@@ -252,30 +489,418 @@ public class AstroConfig implements Configuration{
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new ArrayList<>();
-        for (int x = 0; x < grid.length; x++) {
-            for (int y = 0; y < grid[x].length; y++) {
-                Entity gridObject = grid[x][y];
-                if (gridObject != null && !(gridObject instanceof Goal)) {
-                    AstroConfig neighbor = new AstroConfig(this);
-                    if (neighbor.moveEntity(neighbor.grid[x][y], Direction.NORTH)){
-                        neighbors.add(neighbor);
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Pass every neighbor of all Entities in this configuration to a consumer. Pieces are
+     * visited in the order of their cells, the way a scan of the grid would find them.
+     * On grids with lines too long for one mask word, every neighbor derives its stops
+     * from these ones when it is expanded, instead of building masks over the whole grid.
+     * @param consumer The consumer that receives each neighbor.
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Configuration> consumer) {
+        if (board.getRows() <= ONE_WORD_LINE && board.getCols() <= ONE_WORD_LINE) {
+            Occupancy occupancy = new Occupancy(board, cells);
+            for (int piece : piecesInCellOrder()) {
+                for (Direction dir : DIRECTIONS) {
+                    int stop = slideStop(piece, dir, occupancy);
+                    if (stop >= 0) {
+                        AstroConfig neighbor = new AstroConfig(this);
+                        neighbor.setCell(piece, stop);
+                        consumer.accept(neighbor);
                     }
-                    neighbor = new AstroConfig(this);
-                    if (neighbor.moveEntity(neighbor.grid[x][y], Direction.SOUTH)){
-                        neighbors.add(neighbor);
+                }
+            }
+            return;
+        }
+        char[] ownStops = getStops();
+        for (int piece : piecesInCellOrder()) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int stop = ownStops[piece * DIRECTIONS.length + d];
+                if (stop != NO_STOP) {
+                    AstroConfig neighbor = new AstroConfig(this);
+                    neighbor.setCell(piece, stop);
+                    neighbor.parentStops = ownStops;
+                    neighbor.movedPiece = (char) piece;
+                    neighbor.movedFrom = cells[piece];
+                    neighbor.movedTo = (char) stop;
+                    consumer.accept(neighbor);
+                }
+            }
+        }
+        // the neighbors hold on to the stops for as long as they need them, this configuration is done with them
+        stops = null;
+    }
+
+    /**
+     * Get every configuration that slides into this one in one move. A piece can only have
+     * stopped in its cell if the next cell along holds another piece, and it came from some
+     * cell back along the line with nothing in between. A piece with a blocker right next to
+     * it also makes this configuration its own predecessor, the same way
+     * {@link #forEachNeighbor(Consumer)} lists it as its own neighbor.
+     * @return The predecessors
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        Collection<Configuration> predecessors = new ArrayList<>();
+        Occupancy occupancy = new Occupancy(board, cells);
+        int nRows = board.getRows();
+        for (int piece : piecesInCellOrder()) {
+            int x = cells[piece] / nRows;
+            int y = cells[piece] % nRows;
+            for (Direction dir : DIRECTIONS) {
+                boolean vertical = dir == Direction.NORTH || dir == Direction.SOUTH;
+                boolean backwards = dir == Direction.NORTH || dir == Direction.WEST;
+                int pos = vertical ? y : x;
+                int step = backwards ? -1 : 1;
+                int ahead = backwards ? occupancy.before(vertical, x, y) : occupancy.after(vertical, x, y);
+                // the edge of the grid is no blocker, so a piece against it slid in from elsewhere
+                if (ahead < 0 || ahead != pos + step) {
+                    continue;
+                }
+                predecessors.add(new AstroConfig(this));
+                // the piece came from the far side, up to the nearest piece or the edge behind it
+                int behind = backwards ? occupancy.after(vertical, x, y) : occupancy.before(vertical, x, y);
+                if (behind < 0) {
+                    behind = backwards ? (vertical ? nRows : board.getCols()) : -1;
+                }
+                for (int from = pos - step; from != behind; from -= step) {
+                    AstroConfig predecessor = new AstroConfig(this);
+                    predecessor.setCell(piece, vertical ? x * nRows + from : from * nRows + y);
+                    predecessors.add(predecessor);
+                }
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * Get every configuration with the astronaut on the goal. The robots can stand anywhere
+     * else, so there is a goal for every way to place them: every set of robot cells on an
+     * unlabeled board, and every order of those on a labeled one. On all but the smallest
+     * boards that is far too many to hold, so the collection is only a view: its size is
+     * counted rather than listed, and its iterator makes one goal at a time. A search should
+     * check the size before it iterates.
+     * @return The goal configurations
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        int free = board.getRows() * board.getCols() - 1;
+        int robots = cells.length - 1;
+        // placements of the robots on the free cells, counted until they pass the int range; on an
+        // unlabeled board that is free choose robots, which is free choose (free - robots) as well,
+        // and taking the smaller of the two keeps every partial product below the final count
+        int factors = board.isUnlabeled() ? Math.min(robots, free - robots) : robots;
+        long count = factors < 0 ? 0 : 1;
+        for (int i = 0; i < factors && count <= Integer.MAX_VALUE; i++) {
+            count *= free - i;
+            if (board.isUnlabeled()) {
+                count /= i + 1;
+            }
+        }
+        int size = (int) Math.min(count, Integer.MAX_VALUE);
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Configuration> iterator() {
+                return new GoalIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Walks every placement of the robots with the astronaut on the goal, like an odometer:
+     * the last robot moves on to its next free cell, and when it runs out the robot before
+     * it moves on and the later ones start again from their first free cells.
+     */
+    private class GoalIterator implements Iterator<Configuration> {
+        private final char[] goalCells = new char[cells.length];
+        private final boolean[] used = new boolean[board.getRows() * board.getCols()];
+        private boolean hasNext;
+
+        GoalIterator() {
+            goalCells[0] = (char) board.cellOf(board.getGoal().getPositionX(), board.getGoal().getPositionY());
+            used[goalCells[0]] = true;
+            hasNext = goalCells.length == 1 || place(1, 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Configuration next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            AstroConfig goal = new AstroConfig(board, goalCells.clone());
+            int last = goalCells.length - 1;
+            if (last == 0) {
+                hasNext = false;
+            } else {
+                used[goalCells[last]] = false;
+                hasNext = place(last, goalCells[last] + 1);
+            }
+            return goal;
+        }
+
+        /**
+         * Put a robot on its first free cell from a given cell on, and every robot after it on
+         * its first free cell, going back to the robots before it when one runs out of cells.
+         * @param piece The robot to place.
+         * @param from The first cell it may go to.
+         * @return true if every robot was placed, false once there are no placements left
+         */
+        private boolean place(int piece, int from) {
+            while (piece > 0) {
+                int cell = from;
+                while (cell < used.length && used[cell]) {
+                    cell++;
+                }
+                if (board.isUnlabeled() && cell < used.length) {
+                    // the robots after it take cells after it, and the only one used there is the goal
+                    int freeAfter = used.length - 1 - cell - (goalCells[0] > cell ? 1 : 0);
+                    if (freeAfter < goalCells.length - 1 - piece) {
+                        cell = used.length;
                     }
-                    neighbor = new AstroConfig(this);
-                    if (neighbor.moveEntity(neighbor.grid[x][y], Direction.EAST)){
-                        neighbors.add(neighbor);
+                }
+                if (cell < used.length) {
+                    used[cell] = true;
+                    goalCells[piece] = (char) cell;
+                    if (piece == goalCells.length - 1) {
+                        return true;
                     }
-                    neighbor = new AstroConfig(this);
-                    if (neighbor.moveEntity(neighbor.grid[x][y], Direction.WEST)){
-                        neighbors.add(neighbor);
+                    piece++;
+                    // robots on an unlabeled board keep their cells sorted
+                    from = board.isUnlabeled() ? cell + 1 : 0;
+                } else {
+                    piece--;
+                    if (piece > 0) {
+                        used[goalCells[piece]] = false;
+                        from = goalCells[piece] + 1;
                     }
                 }
             }
+            return false;
         }
-        return neighbors;
+    }
+
+    /**
+     * Order the pieces by the cell they are in.
+     * @return The piece numbers, sorted by cell.
+     */
+    private int[] piecesInCellOrder() {
+        int[] order = new int[cells.length];
+        for (int i = 0; i < order.length; i++) {
+            int piece = i;
+            int at = i;
+            while (at > 0 && cells[order[at - 1]] > cells[piece]) {
+                order[at] = order[at - 1];
+                at--;
+            }
+            order[at] = piece;
+        }
+        return order;
+    }
+
+    /**
+     * Get the most moves a configuration can have: four slides for every piece.
+     * @return The largest possible number of moves.
+     */
+    @Override
+    public int maxMoves() {
+        return DIRECTIONS.length * cells.length;
+    }
+
+    /**
+     * List every slide that moves a piece. A move is stored as the cell it starts from in the
+     * upper 16 bits and the cell it ends on in the lower 16 bits.
+     * @param moves The buffer to fill.
+     * @return The number of moves.
+     */
+    @Override
+    public int generateMoves(int[] moves) {
+        char[] stops = getStops();
+        int count = 0;
+        for (int piece : piecesInCellOrder()) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int stop = stops[piece * DIRECTIONS.length + d];
+                if (stop != NO_STOP && stop != cells[piece]) {
+                    moves[count++] = (cells[piece] << 16) | stop;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Slide a piece in place.
+     * @param move A move from {@link #generateMoves(int[])}.
+     */
+    @Override
+    public void makeMove(int move) {
+        moveCell(move >>> 16, move & 0xFFFF);
+    }
+
+    /**
+     * Slide a piece back to where it came from.
+     * @param move The move that was made.
+     */
+    @Override
+    public void unmakeMove(int move) {
+        moveCell(move & 0xFFFF, move >>> 16);
+    }
+
+    /**
+     * Check if a move slides a piece straight back to where the previous move took it from.
+     * @param move The move being considered.
+     * @param previous The move made before it.
+     * @return true if the move undoes the previous one
+     */
+    @Override
+    public boolean undoes(int move, int previous) {
+        return move == ((previous << 16) | (previous >>> 16));
+    }
+
+    /**
+     * Make a copy of this configuration with its own pieces.
+     * @return The copy.
+     */
+    @Override
+    public AstroConfig copy() {
+        AstroConfig copy = new AstroConfig(this);
+        copy.stops = stops == null ? null : stops.clone();
+        return copy;
+    }
+
+    /**
+     * Move the piece in one cell to another, empty, cell.
+     * @param from The cell the piece is in.
+     * @param to The cell to put it in.
+     */
+    private void moveCell(int from, int to) {
+        for (int piece = 0; piece < cells.length; piece++) {
+            if (cells[piece] == from) {
+                getStops();
+                updateStops(stops, setCell(piece, to), from, to);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Put a piece in a cell, updating the key. On an unlabeled board the robots are then
+     * moved around so their cells stay sorted.
+     * @param piece The piece number.
+     * @param cell The cell to put it in.
+     * @return The number of the piece afterwards, which only changes on an unlabeled board.
+     */
+    private int setCell(int piece, int cell) {
+        key ^= board.zobrist(piece, cells[piece]) ^ board.zobrist(piece, cell);
+        cells[piece] = (char) cell;
+        if (board.isUnlabeled() && piece > 0) {
+            while (piece > 1 && cells[piece - 1] > cells[piece]) {
+                swapPieces(piece - 1, piece);
+                piece--;
+            }
+            while (piece < cells.length - 1 && cells[piece + 1] < cells[piece]) {
+                swapPieces(piece, piece + 1);
+                piece++;
+            }
+        }
+        return piece;
+    }
+
+    /**
+     * Swap the cells of two pieces, and their stops if they have been worked out.
+     * @param a One piece number.
+     * @param b The other piece number.
+     */
+    private void swapPieces(int a, int b) {
+        char cell = cells[a];
+        cells[a] = cells[b];
+        cells[b] = cell;
+        if (stops != null) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                char stop = stops[a * DIRECTIONS.length + d];
+                stops[a * DIRECTIONS.length + d] = stops[b * DIRECTIONS.length + d];
+                stops[b * DIRECTIONS.length + d] = stop;
+            }
+        }
+    }
+
+    /**
+     * Make the canonical form of this configuration, in which robots are only blockers.
+     * Its neighbors are canonical too, so a search started from it never tells apart two
+     * states that differ only in which robot stands where. {@link #restoreLabels(AstroConfig, List)}
+     * turns a path found this way back into one with named robots.
+     * @return The canonical configuration, on the unlabeled version of this board.
+     */
+    public AstroConfig canonicalForm() {
+        char[] sorted = cells.clone();
+        Arrays.sort(sorted, 1, sorted.length);
+        return new AstroConfig(board.unlabeled(), sorted);
+    }
+
+    /**
+     * Rebuild a path found from a canonical configuration as a path from the labeled one,
+     * by following at every step the labeled neighbor with the same canonical form.
+     * @param start The labeled configuration the search started from.
+     * @param path The path of canonical configurations, starting with the canonical form of start.
+     * @return The same path with every robot named, or null if path is null.
+     */
+    public static List<Configuration> restoreLabels(AstroConfig start, List<Configuration> path) {
+        if (path == null) {
+            return null;
+        }
+        List<Configuration> labeled = new ArrayList<>();
+        AstroConfig current = start;
+        labeled.add(current);
+        for (int i = 1; i < path.size(); i++) {
+            AstroConfig target = (AstroConfig) path.get(i);
+            AstroConfig next = null;
+            for (Configuration neighbor : current.getNeighbors()) {
+                if (((AstroConfig) neighbor).canonicalForm().equals(target)) {
+                    next = (AstroConfig) neighbor;
+                    break;
+                }
+            }
+            if (next == null) {
+                throw new IllegalArgumentException("Step " + i + " of the path does not follow from the one before");
+            }
+            labeled.add(next);
+            current = next;
+        }
+        return labeled;
+    }
+
+    /**
+     * Compute the key of the piece cells from scratch.
+     * @return The Zobrist key.
+     */
+    private long computeKey() {
+        long result = 0;
+        for (int piece = 0; piece < cells.length; piece++) {
+            result ^= board.zobrist(piece, cells[piece]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the 64-bit Zobrist key of this configuration. Equal configurations have equal keys,
+     * and different ones almost never do.
+     * @return The key
+     */
+    public long getKey() {
+        return key;
     }
 
     /**
@@ -287,7 +912,7 @@ public class AstroConfig implements Configuration{
     public boolean equals(Object other) {
         if (other instanceof AstroConfig) {
             AstroConfig otherConfig = (AstroConfig) other;
-            return Arrays.deepEquals(this.grid, otherConfig.grid);
+            return this.key == otherConfig.key && Arrays.equals(this.cells, otherConfig.cells);
         }
         return false;
     }
@@ -298,7 +923,7 @@ public class AstroConfig implements Configuration{
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(this.grid);
+        return (int) (key ^ (key >>> 32));
     }
 
     /**
@@ -306,7 +931,7 @@ public class AstroConfig implements Configuration{
      * @return The number of columns
      */
     public int getCols(){
-        return nColumns;
+        return board.getCols();
     }
 
     /**
@@ -314,20 +939,7 @@ public class AstroConfig implements Configuration{
      * @return The number of rows
      */
     public int getRows(){
-        return nRows;
-    }
-
-    /**
-     * Set the position of an Entity.
-     * @param x The x component of the new position.
-     * @param y The y component of the new position.
-     * @param entity The entity that we're changing the position of.
-     */
-    public void setLocation(int x, int y, Entity entity){
-        grid[x][y] = entity;
-        if (entity != null) {
-            entity.setPosition(x, y);
-        }
+        return board.getRows();
     }
 
     /**
@@ -337,22 +949,27 @@ public class AstroConfig implements Configuration{
      */
     @Override
     public String toString() {
-        String output = "";
+        String[] names = new String[board.getRows() * board.getCols()];
+        for (int piece = 0; piece < cells.length; piece++) {
+            names[cells[piece]] = board.getName(piece);
+        }
+        Goal goal = board.getGoal();
+        StringBuilder output = new StringBuilder();
         for (int i = 0; i < getRows(); i++) {
             for (int j = 0; j < getCols(); j++) {
-                Entity current = grid[j][i];
+                String current = names[board.cellOf(j, i)];
                 if (current != null) {
-                    output += current.getName() + " ";
+                    output.append(current).append(" ");
                 }
-                else if (current == null && j == goal.getPositionX() && i == goal.getPositionY()) {
-                    output += "* ";
+                else if (j == goal.getPositionX() && i == goal.getPositionY()) {
+                    output.append("* ");
                 }
                 else {
-                    output += ". ";
+                    output.append(". ");
                 }
             }
-            output += "\n";
+            output.append("\n");
         }
-        return output;
+        return output.toString();
     }
 }
@@ -1,6 +1,6 @@
 package puzzles.astro.model;
 
-import puzzles.astro.solver.Astro;
+import puzzles.common.Direction;
 import puzzles.common.Observer;
 
 import java.io.IOException;
@@ -17,6 +17,8 @@ public class AstroModel {
 
     /** the current configuration */
     private AstroConfig currentConfig;
+    /** the piece the player has selected, 0 being the astronaut */
+    private int selectedPiece;
 
     public AstroConfig getCurrentConfig() {
         return currentConfig;
@@ -47,7 +49,29 @@ public class AstroModel {
      * @return True if an entity was selected
      */
     public boolean select(int x, int y) {
-        return this.currentConfig.selectEntity(x, y);
+        int piece = this.currentConfig.pieceAt(x, y);
+        if (piece < 0) {
+            return false;
+        }
+        selectedPiece = piece;
+        return true;
+    }
+
+    /**
+     * Get the selected entity.
+     * @return The selected piece, at its current position.
+     */
+    public Entity getSelectedEntity() {
+        return this.currentConfig.getEntity(selectedPiece);
+    }
+
+    /**
+     * Move the selected entity in a given direction.
+     * @param dir The direction to move the entity in.
+     * @return true if the entity moved
+     */
+    public boolean moveSelected(Direction dir) {
+        return this.currentConfig.movePiece(selectedPiece, dir);
     }
 
     /**
@@ -62,6 +86,9 @@ public class AstroModel {
      * @param config The config to set the current config to.
      */
     public void setCurrentConfig(AstroConfig config ){
+        if (currentConfig == null || currentConfig.getBoard() != config.getBoard()) {
+            selectedPiece = 0;
+        }
         currentConfig = config;
     }
 
@@ -0,0 +1,93 @@
+package puzzles.astro.model;
+
+/**
+ * Which cells of an Astro grid hold a piece, kept as one bitmask per row and one per
+ * column. The nearest piece in any direction is then found with a single
+ * {@link Long#numberOfTrailingZeros(long)} or {@link Long#numberOfLeadingZeros(long)} on
+ * a masked word, instead of walking the line cell by cell. Lines longer than 64 cells
+ * span several words.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+final class Occupancy {
+    private final int nRows;
+    private final int rowWords;
+    private final int colWords;
+    /** bit x of row y is at word y * rowWords + x / 64 */
+    private final long[] rows;
+    /** bit y of column x is at word x * colWords + y / 64 */
+    private final long[] cols;
+
+    /**
+     * Build the masks for a set of pieces.
+     * @param board The board the pieces are on.
+     * @param cells The cell of every piece.
+     */
+    Occupancy(AstroBoard board, char[] cells) {
+        this.nRows = board.getRows();
+        this.rowWords = (board.getCols() + 63) >>> 6;
+        this.colWords = (nRows + 63) >>> 6;
+        this.rows = new long[nRows * rowWords];
+        this.cols = new long[board.getCols() * colWords];
+        for (char cell : cells) {
+            set(cell);
+        }
+    }
+
+    /**
+     * Mark a cell as holding a piece.
+     * @param cell The cell number.
+     */
+    private void set(int cell) {
+        int x = cell / nRows;
+        int y = cell % nRows;
+        rows[y * rowWords + (x >>> 6)] |= 1L << x;
+        cols[x * colWords + (y >>> 6)] |= 1L << y;
+    }
+
+    /**
+     * Find the nearest piece in a row or column on the low side of a position.
+     * @param vertical true to look along column x, false to look along row y.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The coordinate along the line of the nearest piece before the position, or -1 if there is none.
+     */
+    int before(boolean vertical, int x, int y) {
+        long[] masks = vertical ? cols : rows;
+        int base = vertical ? x * colWords : y * rowWords;
+        int pos = vertical ? y : x;
+        int word = pos >>> 6;
+        long bits = masks[base + word] & ((1L << pos) - 1);
+        while (bits == 0) {
+            if (--word < 0) {
+                return -1;
+            }
+            bits = masks[base + word];
+        }
+        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    /**
+     * Find the nearest piece in a row or column on the high side of a position.
+     * @param vertical true to look along column x, false to look along row y.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The coordinate along the line of the nearest piece after the position, or -1 if there is none.
+     */
+    int after(boolean vertical, int x, int y) {
+        long[] masks = vertical ? cols : rows;
+        int words = vertical ? colWords : rowWords;
+        int base = vertical ? x * colWords : y * rowWords;
+        int pos = vertical ? y : x;
+        int word = pos >>> 6;
+        // shifting by the position plus one drops the position itself, even when it is bit 63
+        long bits = masks[base + word] & (-2L << pos);
+        while (bits == 0) {
+            if (++word == words) {
+                return -1;
+            }
+            bits = masks[base + word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
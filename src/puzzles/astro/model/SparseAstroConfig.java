@@ -0,0 +1,285 @@
+package puzzles.astro.model;
+
+import puzzles.common.Direction;
+import puzzles.common.solver.Configuration;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * A configuration of the Astro game for grids too big for an {@link AstroConfig}, such as
+ * generated boards a thousand cells on a side with a few dozen robots. Besides the cell of
+ * every piece it keeps the pieces sorted twice, column by column and row by row, so the
+ * piece a slide runs into is the next one along in a sorted array, found with a binary
+ * search. A configuration takes memory for its pieces only, never for the area of the
+ * grid, and its board has no tables over the cells either. Neighbors come in the same order
+ * as those of an AstroConfig of the same puzzle. {@link AstroConfig#load(String)} picks this
+ * class for large grids.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public class SparseAstroConfig implements Configuration {
+    /** the directions a piece can slide in, in the order moves are listed */
+    private final static Direction[] DIRECTIONS = {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST};
+    /** the bits of a sorted entry that hold the piece number */
+    private final static int PIECE_BITS = 16;
+
+    /** the fixed parts of the puzzle, shared by all its configurations */
+    private final AstroBoard board;
+    /** the cell of every piece, x * rows + y, in the order of the board's names */
+    private final int[] cells;
+    /** every piece as its cell above the low 16 bits and its number in them, sorted, so column by column */
+    private final long[] byColumn;
+    /** every piece as y * columns + x above the low 16 bits and its number in them, sorted, so row by row */
+    private final long[] byRow;
+    /** the Zobrist key of the piece cells */
+    private long key;
+
+    /**
+     * Create a new SparseAstroConfig object
+     * @param filename The filename to load it from.
+     * @throws IOException
+     */
+    public SparseAstroConfig(String filename) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+            String[] firstLine = in.readLine().split("\\s+");
+            int nRows = Integer.parseInt(firstLine[0]);
+            int nColumns = Integer.parseInt(firstLine[1]);
+
+            String[] goalLine = in.readLine().split("\\s+");
+            Goal goal = new Goal(goalLine[0], AstroConfig.parseX(goalLine), AstroConfig.parseY(goalLine));
+
+            String[] astronautLine = in.readLine().split("\\s+");
+            int nRobots = Integer.parseInt(in.readLine().trim());
+            String[] names = new String[nRobots + 1];
+            this.cells = new int[nRobots + 1];
+            names[0] = astronautLine[0];
+            cells[0] = AstroConfig.parseX(astronautLine) * nRows + AstroConfig.parseY(astronautLine);
+
+            for (int i = 1; i <= nRobots; i++) {
+                String[] robotLine = in.readLine().split("\\s+");
+                names[i] = robotLine[0];
+                cells[i] = AstroConfig.parseX(robotLine) * nRows + AstroConfig.parseY(robotLine);
+            }
+            if (cells.length >= 1 << PIECE_BITS) {
+                throw new IOException("Too many pieces: " + cells.length);
+            }
+
+            this.board = new AstroBoard(nRows, nColumns, goal, names, false);
+            this.byColumn = new long[cells.length];
+            this.byRow = new long[cells.length];
+            for (int piece = 0; piece < cells.length; piece++) {
+                byColumn[piece] = columnEntry(piece, cells[piece]);
+                byRow[piece] = rowEntry(piece, cells[piece]);
+                key ^= board.zobrist(piece, cells[piece]);
+            }
+            Arrays.sort(byColumn);
+            Arrays.sort(byRow);
+        }
+    }
+
+    /**
+     * Create a neighbor of a configuration, with one piece moved to another cell.
+     * @param original The configuration to move a piece of.
+     * @param piece The piece number.
+     * @param cell The cell to move it to.
+     */
+    private SparseAstroConfig(SparseAstroConfig original, int piece, int cell) {
+        this.board = original.board;
+        this.cells = original.cells.clone();
+        this.byColumn = original.byColumn.clone();
+        this.byRow = original.byRow.clone();
+        this.key = original.key ^ board.zobrist(piece, cells[piece]) ^ board.zobrist(piece, cell);
+        move(byColumn, columnEntry(piece, cells[piece]), columnEntry(piece, cell));
+        move(byRow, rowEntry(piece, cells[piece]), rowEntry(piece, cell));
+        cells[piece] = cell;
+    }
+
+    /**
+     * Get the sorted entry of a piece for the column by column order, which is that of its cell.
+     * @param piece The piece number.
+     * @param cell Its cell.
+     * @return The entry
+     */
+    private static long columnEntry(int piece, int cell) {
+        return ((long) cell << PIECE_BITS) | piece;
+    }
+
+    /**
+     * Get the sorted entry of a piece for the row by row order.
+     * @param piece The piece number.
+     * @param cell Its cell.
+     * @return The entry
+     */
+    private long rowEntry(int piece, int cell) {
+        int nRows = board.getRows();
+        long rowMajor = (long) (cell % nRows) * board.getCols() + cell / nRows;
+        return (rowMajor << PIECE_BITS) | piece;
+    }
+
+    /**
+     * Replace an entry of a sorted array, shifting the entries in between by one so the
+     * array stays sorted.
+     * @param sorted The sorted entries.
+     * @param from The entry to take out.
+     * @param to The entry to put in.
+     */
+    private static void move(long[] sorted, long from, long to) {
+        int at = Arrays.binarySearch(sorted, from);
+        while (at > 0 && sorted[at - 1] > to) {
+            sorted[at] = sorted[at - 1];
+            at--;
+        }
+        while (at < sorted.length - 1 && sorted[at + 1] < to) {
+            sorted[at] = sorted[at + 1];
+            at++;
+        }
+        sorted[at] = to;
+    }
+
+    /**
+     * Find where a piece sliding in a given direction comes to rest, which is the cell just
+     * before the piece next to it in the sorted order, if that piece is on the same line.
+     * @param piece The piece number.
+     * @param dir The direction to slide in.
+     * @return The cell it stops in, which is its own cell if the blocker is right next to
+     * it, or -1 if nothing stops it before the edge of the grid.
+     */
+    private int slideStop(int piece, Direction dir) {
+        int nRows = board.getRows();
+        int nColumns = board.getCols();
+        int cell = cells[piece];
+        boolean backwards = dir == Direction.NORTH || dir == Direction.WEST;
+        if (dir == Direction.NORTH || dir == Direction.SOUTH) {
+            int next = Arrays.binarySearch(byColumn, columnEntry(piece, cell)) + (backwards ? -1 : 1);
+            if (next < 0 || next == byColumn.length) {
+                return -1;
+            }
+            int blocker = (int) (byColumn[next] >>> PIECE_BITS);
+            if (blocker / nRows != cell / nRows) {
+                return -1;
+            }
+            return backwards ? blocker + 1 : blocker - 1;
+        }
+        int next = Arrays.binarySearch(byRow, rowEntry(piece, cell)) + (backwards ? -1 : 1);
+        if (next < 0 || next == byRow.length) {
+            return -1;
+        }
+        long blocker = byRow[next] >>> PIECE_BITS;
+        if (blocker / nColumns != cell % nRows) {
+            return -1;
+        }
+        int x = (int) (blocker % nColumns) + (backwards ? 1 : -1);
+        return x * nRows + cell % nRows;
+    }
+
+    /**
+     * Check if the Configuration is a solution.
+     * @return true if it's a solution
+     */
+    @Override
+    public boolean isSolution() {
+        Goal goal = board.getGoal();
+        return cells[0] == board.cellOf(goal.getPositionX(), goal.getPositionY());
+    }
+
+    /**
+     * Get the neighbors of all pieces in this configuration.
+     * @return The neighbors
+     */
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        Collection<Configuration> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Pass every neighbor of all pieces in this configuration to a consumer. Pieces are
+     * visited in the order of their cells, which is the column by column order.
+     * @param consumer The consumer that receives each neighbor.
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Configuration> consumer) {
+        int pieceMask = (1 << PIECE_BITS) - 1;
+        for (long entry : byColumn) {
+            int piece = (int) entry & pieceMask;
+            for (Direction dir : DIRECTIONS) {
+                int stop = slideStop(piece, dir);
+                if (stop >= 0) {
+                    consumer.accept(new SparseAstroConfig(this, piece, stop));
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the board this configuration is played on.
+     * @return The board
+     */
+    public AstroBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Get the cell of a piece.
+     * @param piece The piece number, 0 being the astronaut.
+     * @return The cell number
+     */
+    public int getCell(int piece) {
+        return cells[piece];
+    }
+
+    /**
+     * Get the 64-bit Zobrist key of this configuration. Equal configurations have equal keys,
+     * and different ones almost never do.
+     * @return The key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Check if this SparseAstroConfig equals another one.
+     * @param other The other SparseAstroConfig that is being checked.
+     * @return Whether they are equal.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof SparseAstroConfig) {
+            SparseAstroConfig otherConfig = (SparseAstroConfig) other;
+            return this.key == otherConfig.key && Arrays.equals(this.cells, otherConfig.cells);
+        }
+        return false;
+    }
+
+    /**
+     * Get the hashcode for this SparseAstroConfig.
+     * @return The hashcode.
+     */
+    @Override
+    public int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Returns every piece with its position, in the "name row,column" form of a puzzle file,
+     * since a grid this big is too large to print.
+     *
+     * @return the string
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int piece = 0; piece < cells.length; piece++) {
+            output.append(board.getName(piece)).append(" ")
+                    .append(board.yOf(cells[piece])).append(",").append(board.xOf(cells[piece])).append("\n");
+        }
+        return output.toString();
+    }
+}
@@ -5,8 +5,9 @@ import puzzles.astro.model.Entity;
 import puzzles.common.Direction;
 import puzzles.common.Observer;
 import puzzles.astro.model.AstroModel;
+import puzzles.astro.solver.AstroPatternDatabase;
+import puzzles.common.solver.AStarEngine;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
 
 import java.io.IOException;
 import java.util.List;
@@ -35,7 +36,8 @@ public class AstroPTUI implements Observer<AstroModel, String> {
      * @return The solution
      */
     public List<Configuration> getSolution() {
-        return Solver.solve(this.model.getCurrentConfig());
+        AstroConfig current = this.model.getCurrentConfig();
+        return new AStarEngine(AstroPatternDatabase.forHints(current)).solve(current).getPath();
     }
 
     /**
@@ -43,7 +45,10 @@ public class AstroPTUI implements Observer<AstroModel, String> {
      * @return A Configuration that represents the next step.
      */
     public Configuration getHint() {
-        List<Configuration> solution = Solver.solve(this.model.getCurrentConfig());
+        // robots are only blockers, so search without their names and put them back afterwards
+        AstroConfig current = this.model.getCurrentConfig();
+        List<Configuration> solution = AstroConfig.restoreLabels(current,
+                new AStarEngine(AstroPatternDatabase.forHints(current)).solve(current.canonicalForm()).getPath());
         if (solution != null) {
             if (solution.size() == 1) {
                 return solution.get(0);
@@ -60,6 +65,7 @@ public class AstroPTUI implements Observer<AstroModel, String> {
     public String toString() {
         int nRows = model.getCurrentConfig().getNRows();
         int nColumns = model.getCurrentConfig().getNColumns();
+        Entity[][] grid = this.model.getCurrentConfig().getGrid();
         StringBuilder result = new StringBuilder(" ");
         result.append(System.lineSeparator());
         // displaying columns numbers
@@ -77,7 +83,7 @@ public class AstroPTUI implements Observer<AstroModel, String> {
         for (int row = 0; row < nRows; ++row) {
             result.append(String.format("%2d|", row));
             for (int col = 0; col < nColumns; ++col) {
-                Entity current = this.model.getCurrentConfig().getGrid()[col][row];
+                Entity current = grid[col][row];
                 if (current != null) {
                     result.append(current.getName() + " ");
                 }
@@ -155,15 +161,14 @@ public class AstroPTUI implements Observer<AstroModel, String> {
                         System.out.println("Selected: (" + selectX + ", " + selectY + ")");
                     }
                 }else if ( words[0].startsWith("m")) {
-                    AstroConfig currentConfig = model.getCurrentConfig();
                     if (words[1].startsWith("n")) {
-                        currentConfig.moveSelectedEntity(Direction.NORTH);
+                        model.moveSelected(Direction.NORTH);
                     } else if (words[1].startsWith("s")) {
-                        currentConfig.moveSelectedEntity(Direction.SOUTH);
+                        model.moveSelected(Direction.SOUTH);
                     } else if (words[1].startsWith("e")) {
-                        currentConfig.moveSelectedEntity(Direction.EAST);
+                        model.moveSelected(Direction.EAST);
                     } else if (words[1].startsWith("w")) {
-                        currentConfig.moveSelectedEntity(Direction.WEST);
+                        model.moveSelected(Direction.WEST);
                     } else {
                         System.out.println(INVALID_MSG);
                         displayHelp();
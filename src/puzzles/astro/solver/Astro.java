@@ -1,9 +1,9 @@
 package puzzles.astro.solver;
 
 import puzzles.astro.model.AstroConfig;
-import puzzles.astro.model.AstroModel;
 import puzzles.common.Direction;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Pruner;
 import puzzles.common.solver.Solver;
 
 import java.io.IOException;
@@ -16,15 +16,15 @@ public class Astro {
             System.out.println("Usage: java Astro filename");
         } else{
             try {
-                AstroModel model = new AstroModel(args[0]);
-                AstroConfig config = new AstroConfig(args[0]);
-
-                model.setCurrentConfig(config);
-                List<Configuration> solution = Solver.solve(config);
+                // grids too big for an AstroConfig come back sparse, and are searched without the pruner
+                Configuration config = AstroConfig.load(args[0]);
+                Pruner pruner = config instanceof AstroConfig ? new AstroPruner((AstroConfig) config) : Pruner.NONE;
+                List<Configuration> solution = Solver.solve(config, pruner);
 
                 if(solution != null){
                     System.out.println("Total configs: " +  Solver.getTotalConfigs());
                     System.out.println("Unique configs: " + Solver.getUniqueConfigs());
+                    System.out.println("Pruned configs: " + Solver.getLastResult().getStats().getPruned());
 
                     for (int i = 0; i < solution.size(); i++) {
                         System.out.println("Step " + i + ": ");
@@ -0,0 +1,68 @@
+package puzzles.astro.solver;
+
+import puzzles.astro.model.AstroBoard;
+import puzzles.astro.model.AstroConfig;
+import puzzles.astro.model.Goal;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+
+/**
+ * An admissible heuristic for Astro. Every move slides a piece along a single row or column,
+ * so the astronaut needs one move if it already shares a row or column with the goal and two
+ * otherwise. Its last move also has to stop against a robot right next to the goal, so if
+ * no robot is there yet at least one robot move is needed as well.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public class AstroHeuristic implements Heuristic {
+
+    /**
+     * Estimate the number of moves left to get the astronaut home.
+     * @param config The AstroConfig to estimate.
+     * @return A lower bound on the moves left.
+     */
+    @Override
+    public int estimate(Configuration config) {
+        AstroConfig astroConfig = (AstroConfig) config;
+        AstroBoard board = astroConfig.getBoard();
+        int astro = astroConfig.getCell(0);
+        Goal goal = astroConfig.getGoal();
+
+        int moves = 0;
+        if (board.xOf(astro) != goal.getPositionX()) {
+            moves++;
+        }
+        if (board.yOf(astro) != goal.getPositionY()) {
+            moves++;
+        }
+        if (moves > 0 && !hasBlockerBesideGoal(astroConfig, goal)) {
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Check if a robot is in one of the four cells next to the goal.
+     * @param config The AstroConfig to check.
+     * @param goal The goal.
+     * @return true if the astronaut could stop against a robot at the goal
+     */
+    private static boolean hasBlockerBesideGoal(AstroConfig config, Goal goal) {
+        int x = goal.getPositionX();
+        int y = goal.getPositionY();
+        return isRobot(config, x - 1, y) || isRobot(config, x + 1, y) ||
+                isRobot(config, x, y - 1) || isRobot(config, x, y + 1);
+    }
+
+    /**
+     * Check if a cell holds a robot.
+     * @param config The AstroConfig to check.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return true if the cell is on the board and holds a robot
+     */
+    private static boolean isRobot(AstroConfig config, int x, int y) {
+        // piece 0 is the astronaut
+        return config.pieceAt(x, y) > 0;
+    }
+}
@@ -0,0 +1,583 @@
+package puzzles.astro.solver;
+
+import puzzles.astro.model.AstroBoard;
+import puzzles.astro.model.AstroConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A pattern database for Astro: the exact number of moves to get the astronaut home in an
+ * abstract game that only tracks the astronaut and a set of k robots. The robots left out
+ * become wildcards that may stand in any cell a robot can ever reach, so a tracked piece may
+ * stop before any such cell. Every real move is a move of the abstract game, or no move at all
+ * when an untracked robot slides, so the abstract distance of any k robots is a lower bound,
+ * and the estimate is the largest one over every choice of k robots, or that of
+ * {@link AstroHeuristic} if it is larger. When all the robots are tracked there are no
+ * wildcards and the estimate is exact.
+ * <p>
+ * The distances are found once, by a breadth-first search backwards from every state with the
+ * astronaut on the goal, and kept one byte per abstract state. The search stops after
+ * 253 moves; a state it has not reached by then gets 254 as a bound, and only one it never
+ * reaches is known to be a dead end. The tracked robots are an
+ * unordered set, numbered by the combinatorial number system, and the astronaut's cell varies
+ * fastest. A database can be saved to disk and memory-mapped when it is loaded again, so a big
+ * one only has to be built once.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public class AstroPatternDatabase implements Heuristic {
+    /** the size of the table {@link #forPuzzle(AstroConfig)} aims for, small enough to build while a player waits */
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+    /** "APDB", the first bytes of a saved database */
+    private static final int MAGIC = 0x41504442;
+    /**
+     * the distance kept for an abstract state further away than the search goes, which is a
+     * lower bound rather than its exact distance
+     */
+    private static final int MAX_DISTANCE = 0xFE;
+    /** the distance of an abstract state the astronaut can never get home from */
+    private static final int NO_DISTANCE = 0xFF;
+    private static final int[][] DIRECTIONS = {{0, -1}, {0, 1}, {1, 0}, {-1, 0}};
+    private static final AstroHeuristic GEOMETRIC = new AstroHeuristic();
+    /** the databases that guide the hints of the front ends, by the shape of the puzzles they were built for */
+    private static final Map<Shape, List<AstroPatternDatabase>> hintDatabases = new ConcurrentHashMap<>();
+
+    private final int nRows;
+    private final int nColumns;
+    private final int goalCell;
+    private final int tracked;
+    /** the cells an untracked robot can be in */
+    private final BitSet wild;
+    /** binomial[c][j] is c choose j, for j up to the number of tracked robots */
+    private final long[][] binomial;
+    private final ByteBuffer table;
+
+    /**
+     * Create a database around a finished table.
+     * @param nRows The number of rows.
+     * @param nColumns The number of columns.
+     * @param goalCell The cell of the goal.
+     * @param tracked The number of robots tracked.
+     * @param wild The cells an untracked robot can be in.
+     * @param table One distance per abstract state.
+     */
+    private AstroPatternDatabase(int nRows, int nColumns, int goalCell, int tracked, BitSet wild, ByteBuffer table) {
+        this.nRows = nRows;
+        this.nColumns = nColumns;
+        this.goalCell = goalCell;
+        this.tracked = tracked;
+        this.wild = wild;
+        this.binomial = binomials(nRows * nColumns, tracked);
+        this.table = table;
+    }
+
+    /**
+     * Build the database for a puzzle with the default table size.
+     * @param start The configuration the puzzle starts from.
+     * @return The database
+     */
+    public static AstroPatternDatabase forPuzzle(AstroConfig start) {
+        return forPuzzle(start, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Get a database to guide hints for a configuration, reusing one built before for the same
+     * puzzle if there is one that covers the configuration, and otherwise building one with the
+     * default table size and keeping it. The front ends call this for every hint, so a puzzle's
+     * database is only built once however many players are on it, and players on other puzzles
+     * keep theirs. Only hints for puzzles of the same shape wait while one is built.
+     * @param current The configuration a hint is wanted for.
+     * @return The database
+     */
+    public static AstroPatternDatabase forHints(AstroConfig current) {
+        AstroBoard board = current.getBoard();
+        Shape shape = new Shape(board.getRows(), board.getCols(),
+                board.cellOf(board.getGoal().getPositionX(), board.getGoal().getPositionY()),
+                board.getPieceCount() - 1);
+        List<AstroPatternDatabase> databases = hintDatabases.computeIfAbsent(shape, s -> new CopyOnWriteArrayList<>());
+        AstroPatternDatabase database = covering(databases, current);
+        if (database != null) {
+            return database;
+        }
+        synchronized (databases) {
+            // another player may have built it while this one waited
+            database = covering(databases, current);
+            if (database == null) {
+                database = forPuzzle(current);
+                databases.add(database);
+            }
+            return database;
+        }
+    }
+
+    /**
+     * Find a database that covers a configuration.
+     * @param databases The databases to look through.
+     * @param config The configuration.
+     * @return The first database that covers it, or null if none does
+     */
+    private static AstroPatternDatabase covering(List<AstroPatternDatabase> databases, AstroConfig config) {
+        for (AstroPatternDatabase database : databases) {
+            if (database.covers(config)) {
+                return database;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build the database for a puzzle, tracking as many robots as fit in the table.
+     * @param start The configuration the puzzle starts from.
+     * @param maxEntries The largest table to build, in bytes.
+     * @return The database
+     */
+    public static AstroPatternDatabase forPuzzle(AstroConfig start, int maxEntries) {
+        int nCells = start.getRows() * start.getCols();
+        int robots = start.getBoard().getPieceCount() - 1;
+        int tracked = robots;
+        while (tracked > 0 && nCells * binomials(nCells, tracked)[nCells][tracked] > maxEntries) {
+            tracked--;
+        }
+        return build(start, tracked);
+    }
+
+    /**
+     * Build the database for a puzzle.
+     * @param start The configuration the puzzle starts from.
+     * @param tracked The number of robots to track.
+     * @return The database
+     */
+    public static AstroPatternDatabase build(AstroConfig start, int tracked) {
+        AstroBoard board = start.getBoard();
+        int robots = board.getPieceCount() - 1;
+        if (tracked < 0 || tracked > robots) {
+            throw new IllegalArgumentException("Cannot track " + tracked + " of " + robots + " robots");
+        }
+        // with every robot tracked there is nothing left to stand in for
+        BitSet wild = tracked == robots ? new BitSet() : new AstroPruner(start).getRobotCells();
+        int goalCell = board.cellOf(board.getGoal().getPositionX(), board.getGoal().getPositionY());
+        AstroPatternDatabase database = new AstroPatternDatabase(board.getRows(), board.getCols(),
+                goalCell, tracked, wild, null);
+        return new AstroPatternDatabase(board.getRows(), board.getCols(), goalCell, tracked, wild,
+                ByteBuffer.wrap(database.distances()));
+    }
+
+    /**
+     * Work out the distance of every abstract state, one depth at a time, by generating the
+     * predecessors of the states found at the depth before.
+     * @return The table of distances
+     */
+    private byte[] distances() {
+        int nCells = nRows * nColumns;
+        long combinations = binomial[nCells][tracked];
+        if (combinations * nCells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern database too large: " + combinations * nCells);
+        }
+        byte[] distances = new byte[(int) (combinations * nCells)];
+        Arrays.fill(distances, (byte) NO_DISTANCE);
+
+        int[] robots = firstCombination();
+        boolean[] occupied = new boolean[nCells];
+        for (int combination = 0; combination < combinations; combination++) {
+            if (!contains(robots, goalCell)) {
+                distances[combination * nCells + goalCell] = 0;
+            }
+            nextCombination(robots);
+        }
+
+        int[] moved = new int[tracked];
+        boolean found = true;
+        for (int depth = 0; found && depth + 1 < MAX_DISTANCE; depth++) {
+            found = false;
+            robots = firstCombination();
+            for (int combination = 0; combination < combinations; combination++) {
+                for (int robot : robots) {
+                    occupied[robot] = true;
+                }
+                for (int astro = 0; astro < nCells; astro++) {
+                    if ((distances[combination * nCells + astro] & 0xFF) != depth) {
+                        continue;
+                    }
+                    occupied[astro] = true;
+                    // predecessors where the astronaut moved
+                    for (int[] dir : DIRECTIONS) {
+                        for (int from = firstFrom(astro, dir, occupied); from >= 0; from = nextFrom(from, dir, occupied)) {
+                            found |= record(distances, combination * nCells + from, depth + 1);
+                        }
+                    }
+                    // predecessors where one of the robots moved
+                    for (int i = 0; i < tracked; i++) {
+                        for (int[] dir : DIRECTIONS) {
+                            for (int from = firstFrom(robots[i], dir, occupied); from >= 0; from = nextFrom(from, dir, occupied)) {
+                                replace(robots, i, from, moved);
+                                found |= record(distances, (int) combinationIndex(moved) * nCells + astro, depth + 1);
+                            }
+                        }
+                    }
+                    occupied[astro] = false;
+                }
+                for (int robot : robots) {
+                    occupied[robot] = false;
+                }
+                nextCombination(robots);
+            }
+        }
+        if (found) {
+            // the search was cut off, so the states it has not reached may still get home
+            for (int index = 0; index < distances.length; index++) {
+                if ((distances[index] & 0xFF) == NO_DISTANCE) {
+                    distances[index] = (byte) MAX_DISTANCE;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Copy a sorted set of cells with one cell swapped for another, keeping it sorted.
+     * @param cells The cells, in increasing order.
+     * @param i The position of the cell to swap out.
+     * @param cell The cell to swap in, which must not be in the set.
+     * @param into The array to write the new set to.
+     */
+    private static void replace(int[] cells, int i, int cell, int[] into) {
+        int j = 0;
+        boolean placed = false;
+        for (int k = 0; k < cells.length; k++) {
+            if (k == i) {
+                continue;
+            }
+            if (!placed && cells[k] > cell) {
+                into[j++] = cell;
+                placed = true;
+            }
+            into[j++] = cells[k];
+        }
+        if (!placed) {
+            into[j] = cell;
+        }
+    }
+
+    /**
+     * Set the distance of a state that has none yet.
+     * @param distances The table of distances.
+     * @param index The index of the state.
+     * @param distance Its distance.
+     * @return true if the state had no distance before
+     */
+    private static boolean record(byte[] distances, int index, int distance) {
+        if ((distances[index] & 0xFF) != NO_DISTANCE) {
+            return false;
+        }
+        distances[index] = (byte) distance;
+        return true;
+    }
+
+    /**
+     * Find the nearest cell a piece that slid in a direction and stopped at a cell could have
+     * come from. It could only stop there if the next cell along holds a tracked piece or
+     * could hold an untracked robot.
+     * @param stop The cell the piece stopped at.
+     * @param dir The direction it slid in.
+     * @param occupied The cells of the tracked pieces.
+     * @return The cell it could have come from, or -1 if there is none
+     */
+    private int firstFrom(int stop, int[] dir, boolean[] occupied) {
+        int x = stop / nRows;
+        int y = stop % nRows;
+        int nextX = x + dir[0];
+        int nextY = y + dir[1];
+        if (!contains(nextX, nextY)) {
+            return -1;
+        }
+        int next = nextX * nRows + nextY;
+        if (!occupied[next] && !wild.get(next)) {
+            return -1;
+        }
+        return nextFrom(stop, dir, occupied);
+    }
+
+    /**
+     * Step one cell further back along a slide.
+     * @param from The cell the piece could have come from.
+     * @param dir The direction it slid in.
+     * @param occupied The cells of the tracked pieces.
+     * @return The next cell back, or -1 if the grid ends or a tracked piece is in the way
+     */
+    private int nextFrom(int from, int[] dir, boolean[] occupied) {
+        int x = from / nRows - dir[0];
+        int y = from % nRows - dir[1];
+        if (!contains(x, y) || occupied[x * nRows + y]) {
+            return -1;
+        }
+        return x * nRows + y;
+    }
+
+    /**
+     * Check if a coordinate is on the grid.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return true if it is inside the grid
+     */
+    private boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < nColumns && y < nRows;
+    }
+
+    /**
+     * Check if a set of cells contains a cell.
+     * @param cells The cells.
+     * @param cell The cell to look for.
+     * @return true if it is one of them
+     */
+    private static boolean contains(int[] cells, int cell) {
+        for (int c : cells) {
+            if (c == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the first set of tracked robot cells, the one numbered 0.
+     * @return The cells 0 to k - 1
+     */
+    private int[] firstCombination() {
+        int[] cells = new int[tracked];
+        for (int i = 0; i < tracked; i++) {
+            cells[i] = i;
+        }
+        return cells;
+    }
+
+    /**
+     * Step a sorted set of cells on to the set numbered one higher, which is the next one in
+     * colexicographic order.
+     * @param cells The cells, changed in place.
+     */
+    private static void nextCombination(int[] cells) {
+        int i = 0;
+        while (i + 1 < cells.length && cells[i] + 1 == cells[i + 1]) {
+            cells[i] = i;
+            i++;
+        }
+        if (i < cells.length) {
+            cells[i]++;
+        }
+    }
+
+    /**
+     * Number a sorted set of cells in the combinatorial number system.
+     * @param cells The cells, in increasing order.
+     * @return The number of the set
+     */
+    private long combinationIndex(int[] cells) {
+        long index = 0;
+        for (int i = 0; i < cells.length; i++) {
+            index += binomial[cells[i]][i + 1];
+        }
+        return index;
+    }
+
+    /**
+     * Work out c choose j for every c up to a number of cells and every j up to k.
+     * @param nCells The number of cells.
+     * @param k The largest j.
+     * @return The table, indexed [c][j]
+     */
+    private static long[][] binomials(int nCells, int k) {
+        long[][] binomial = new long[nCells + 1][k + 1];
+        for (int c = 0; c <= nCells; c++) {
+            binomial[c][0] = 1;
+            for (int j = 1; j <= k && j <= c; j++) {
+                // saturate rather than overflow, such tables are never built anyway
+                binomial[c][j] = Math.min(binomial[c - 1][j - 1] + binomial[c - 1][j], Integer.MAX_VALUE);
+            }
+        }
+        return binomial;
+    }
+
+    /**
+     * Check if this database gives a lower bound for a configuration and everything
+     * reachable from it: it has to be on a grid of the same size with the same goal and at
+     * least as many robots, and its robots must not be able to get anywhere the untracked
+     * robots were not expected to be.
+     * @param config The AstroConfig to check.
+     * @return true if the estimates of this database hold for it
+     */
+    public boolean covers(AstroConfig config) {
+        AstroBoard board = config.getBoard();
+        int robots = board.getPieceCount() - 1;
+        if (board.getRows() != nRows || board.getCols() != nColumns || robots < tracked ||
+                board.cellOf(board.getGoal().getPositionX(), board.getGoal().getPositionY()) != goalCell) {
+            return false;
+        }
+        if (robots == tracked) {
+            return true;
+        }
+        BitSet robotCells = new AstroPruner(config).getRobotCells();
+        robotCells.andNot(wild);
+        return robotCells.isEmpty();
+    }
+
+    /**
+     * Get the number of robots tracked.
+     * @return The number of robots in every abstract state
+     */
+    public int getTracked() {
+        return tracked;
+    }
+
+    /**
+     * Estimate the number of moves left to get the astronaut home, as the largest abstract
+     * distance over every set of k robots of the configuration.
+     * @param config The AstroConfig to estimate, which this database must cover.
+     * @return A lower bound on the moves left, or {@link Heuristic#UNREACHABLE} if some set of
+     * k robots was proven never to let the astronaut get home
+     */
+    @Override
+    public int estimate(Configuration config) {
+        AstroConfig astroConfig = (AstroConfig) config;
+        int nCells = nRows * nColumns;
+        int astro = astroConfig.getCell(0);
+        int[] robots = new int[astroConfig.getBoard().getPieceCount() - 1];
+        for (int i = 0; i < robots.length; i++) {
+            robots[i] = astroConfig.getCell(i + 1);
+        }
+        Arrays.sort(robots);
+
+        // walk every set of k robot numbers, each in increasing order so the cells stay sorted
+        int[] chosen = firstCombination();
+        int[] cells = new int[tracked];
+        int best = GEOMETRIC.estimate(config);
+        do {
+            for (int i = 0; i < tracked; i++) {
+                cells[i] = robots[chosen[i]];
+            }
+            int distance = table.get((int) combinationIndex(cells) * nCells + astro) & 0xFF;
+            if (distance == NO_DISTANCE) {
+                return UNREACHABLE;
+            }
+            best = Math.max(best, distance);
+            nextCombination(chosen);
+        } while (tracked > 0 && chosen[tracked - 1] < robots.length);
+        return best;
+    }
+
+    /**
+     * Write the database to a file.
+     * @param file The file to write.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(Path file) {
+        long[] wildWords = wild.toLongArray();
+        ByteBuffer header = ByteBuffer.allocate(6 * Integer.BYTES + wildWords.length * Long.BYTES);
+        header.putInt(MAGIC).putInt(nRows).putInt(nColumns).putInt(goalCell).putInt(tracked)
+                .putInt(wildWords.length);
+        for (long word : wildWords) {
+            header.putLong(word);
+        }
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer distances = table.duplicate().clear();
+            while (distances.hasRemaining()) {
+                channel.write(distances);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read a database written by {@link #save(Path)}. The table is memory-mapped rather than
+     * read into the heap, so only the parts a search looks at are ever loaded.
+     * @param file The file to read.
+     * @return The database
+     * @throws UncheckedIOException if the file cannot be read or is not a pattern database
+     */
+    public static AstroPatternDatabase load(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, 6 * Integer.BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not an Astro pattern database");
+            }
+            int nRows = header.getInt();
+            int nColumns = header.getInt();
+            int goalCell = header.getInt();
+            int tracked = header.getInt();
+            int wildWords = header.getInt();
+            long[] words = new long[wildWords];
+            readFully(channel, header.capacity(), wildWords * Long.BYTES).asLongBuffer().get(words);
+            long start = header.capacity() + (long) wildWords * Long.BYTES;
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, start, channel.size() - start);
+            return new AstroPatternDatabase(nRows, nColumns, goalCell, tracked, BitSet.valueOf(words), table);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read a number of bytes from a channel.
+     * @param channel The channel.
+     * @param position Where to start reading.
+     * @param length The number of bytes.
+     * @return The bytes, ready to be read
+     * @throws IOException if the channel ends first
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Pattern database ends early");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Build the pattern database of a puzzle and save it, so it can be loaded later. Offline
+     * there is time to build a bigger table than {@link #DEFAULT_MAX_ENTRIES}.
+     * @param args The puzzle file, the database file and optionally the largest table size.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("Usage: java AstroPatternDatabase puzzle-file database-file [max-entries]");
+        } else {
+            try {
+                long start = System.nanoTime();
+                int maxEntries = args.length == 3 ? Integer.parseInt(args[2]) : DEFAULT_MAX_ENTRIES;
+                AstroPatternDatabase database = forPuzzle(new AstroConfig(args[0]), maxEntries);
+                database.save(Path.of(args[1]));
+                System.out.println("Tracked robots: " + database.getTracked());
+                System.out.println("Entries: " + database.table.capacity());
+                System.out.println("Build time: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+                System.out.println("Could not build the database: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * What a puzzle must share with another for one database to possibly cover both: the size
+     * of the grid, the cell of the goal and the number of robots.
+     */
+    private record Shape(int nRows, int nColumns, int goalCell, int robots) {
+    }
+}
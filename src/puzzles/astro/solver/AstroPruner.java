@@ -0,0 +1,173 @@
+package puzzles.astro.solver;
+
+import puzzles.astro.model.AstroBoard;
+import puzzles.astro.model.AstroConfig;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Pruner;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops Astro configurations whose astronaut can never get home. The board is analysed
+ * once, in a relaxed game where a sliding piece may stop before any cell that some piece
+ * could ever occupy, whatever is really in between:
+ * <ol>
+ *     <li>the cells any piece can ever stand on are grown from the starting cells until
+ *     nothing changes,</li>
+ *     <li>the cells a robot can ever stand on are grown the same way from the robots'
+ *     starting cells, and</li>
+ *     <li>the cells from which the astronaut can slide to the goal, stopping against a
+ *     robot cell, are grown backwards from the goal.</li>
+ * </ol>
+ * The relaxed game allows every real move, so an astronaut outside the second set is
+ * stuck for good, and checking a configuration is a single bit lookup.
+ *
+ * @author the somosas (Kushal, Michael, Soban)
+ */
+public class AstroPruner implements Pruner {
+    private static final int[][] DIRECTIONS = {{0, -1}, {0, 1}, {1, 0}, {-1, 0}};
+
+    private final AstroBoard board;
+    /** the cells a robot can ever occupy */
+    private final BitSet robotCells;
+    /** the astronaut cells from which the goal can still be reached */
+    private final BitSet live;
+    private final LongAdder pruned = new LongAdder();
+
+    /**
+     * Analyse the board of a puzzle.
+     * @param start The configuration the search will start from.
+     */
+    public AstroPruner(AstroConfig start) {
+        this.board = start.getBoard();
+        BitSet anyCells = new BitSet();
+        this.robotCells = new BitSet();
+        for (int piece = 0; piece < board.getPieceCount(); piece++) {
+            anyCells.set(start.getCell(piece));
+            if (piece > 0) {
+                robotCells.set(start.getCell(piece));
+            }
+        }
+        grow(anyCells, anyCells);
+        grow(robotCells, anyCells);
+
+        this.live = new BitSet();
+        int goalX = board.getGoal().getPositionX();
+        int goalY = board.getGoal().getPositionY();
+        live.set(board.cellOf(goalX, goalY));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int x = 0; x < board.getCols(); x++) {
+                for (int y = 0; y < board.getRows(); y++) {
+                    if (!live.get(board.cellOf(x, y)) && canReachLive(x, y)) {
+                        live.set(board.cellOf(x, y));
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add every cell a piece could slide to from the cells already in a set, until
+     * nothing changes.
+     * @param cells The cells to grow.
+     * @param blockers The cells a blocker could be in; cells itself to let it grow as it goes.
+     */
+    private void grow(BitSet cells, BitSet blockers) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+                for (int[] dir : DIRECTIONS) {
+                    int x = board.xOf(cell) + dir[0];
+                    int y = board.yOf(cell) + dir[1];
+                    while (board.contains(x, y)) {
+                        if (canStopAt(x, y, dir, blockers) && !cells.get(board.cellOf(x, y))) {
+                            cells.set(board.cellOf(x, y));
+                            changed = true;
+                        }
+                        x += dir[0];
+                        y += dir[1];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a piece sliding in a direction could stop at a cell, because some piece
+     * could be in the next cell along.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @param dir The direction of the slide.
+     * @param occupied The cells a blocker could be in.
+     * @return true if the next cell is on the grid and could hold a blocker
+     */
+    private boolean canStopAt(int x, int y, int[] dir, BitSet occupied) {
+        int nextX = x + dir[0];
+        int nextY = y + dir[1];
+        return board.contains(nextX, nextY) && occupied.get(board.cellOf(nextX, nextY));
+    }
+
+    /**
+     * Check if an astronaut at a cell could slide to a cell already known to be live.
+     * @param x The x coordinate of the astronaut.
+     * @param y The y coordinate of the astronaut.
+     * @return true if one slide could take it to a live cell
+     */
+    private boolean canReachLive(int x, int y) {
+        for (int[] dir : DIRECTIONS) {
+            int stopX = x + dir[0];
+            int stopY = y + dir[1];
+            while (board.contains(stopX, stopY)) {
+                if (live.get(board.cellOf(stopX, stopY)) && canStopAt(stopX, stopY, dir, robotCells)) {
+                    return true;
+                }
+                stopX += dir[0];
+                stopY += dir[1];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the astronaut of a configuration can no longer get home.
+     * @param config The AstroConfig to check.
+     * @return true if it is stuck for good
+     */
+    @Override
+    public boolean isDead(Configuration config) {
+        if (live.get(((AstroConfig) config).getCell(0))) {
+            return false;
+        }
+        pruned.increment();
+        return true;
+    }
+
+    /**
+     * Get the number of configurations this pruner has dropped so far.
+     * @return The number of dead configurations found.
+     */
+    public long getPruned() {
+        return pruned.sum();
+    }
+
+    /**
+     * Get the number of cells the astronaut can still get home from.
+     * @return The number of live cells.
+     */
+    public int getLiveCells() {
+        return live.cardinality();
+    }
+
+    /**
+     * Get the cells a robot can ever stand on, in the relaxed game.
+     * @return A copy of the robot cells.
+     */
+    public BitSet getRobotCells() {
+        return (BitSet) robotCells.clone();
+    }
+}
@@ -1,7 +1,7 @@
 /**
- * This class represents a configuration of the clock puzzle. It implements the Configuration interface
- * and provides methods to check if it's a solution, get its neighbors, and override equals, hashCode,
- * and toString methods.
+ * This class represents a configuration of the clock puzzle. It implements the GoalConfiguration interface
+ * and provides methods to check if it's a solution, get its neighbors and predecessors, and override equals,
+ * hashCode, and toString methods.
  *
  * @author Michael Bauer
  */
@@ -9,17 +9,20 @@
 package puzzles.clock;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.GoalConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
 
-public class ClockConfig implements Configuration {
+public class ClockConfig implements GoalConfiguration {
 
-    private int currentTime;
-    private static int endTime;
-    private static int hours;
+    private final int currentTime;
+    private final int endTime;
+    private final int hours;
 
 
     /**
@@ -31,8 +34,8 @@ public class ClockConfig implements Configuration {
      */
     public ClockConfig(int hours, int currentTime, int endTime){
         this.currentTime = currentTime;
-        ClockConfig.endTime = endTime;
-        ClockConfig.hours = hours;
+        this.endTime = endTime;
+        this.hours = hours;
     }
 
 
@@ -54,14 +57,43 @@ public class ClockConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
 
+    /**
+     * Passes the time one hour forward and one hour back to the consumer.
+     *
+     * @param consumer The consumer that receives each neighbor
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Configuration> consumer) {
         int nextForward = (currentTime % hours) + 1;
-        neighbors.add(new ClockConfig(hours, nextForward, endTime));
+        consumer.accept(new ClockConfig(hours, nextForward, endTime));
 
         int nextBack = (currentTime == 1) ? hours : currentTime - 1;
-        neighbors.add(new ClockConfig(hours, nextBack, endTime));
+        consumer.accept(new ClockConfig(hours, nextBack, endTime));
+    }
 
-        return neighbors;
+    /**
+     * Gets the goal configuration, which is the clock showing the end time.
+     *
+     * @return A collection holding the single goal configuration
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        return List.of(new ClockConfig(hours, endTime, endTime));
+    }
+
+    /**
+     * Gets the configurations that can reach the current time in one step. Since the clock
+     * can be turned either way, these are the same as the neighbors.
+     *
+     * @return A collection of predecessor configurations
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        return getNeighbors();
     }
 
     /**
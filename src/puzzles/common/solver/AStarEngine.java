@@ -0,0 +1,102 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A best-first (A*) search engine. Configurations are expanded in order of moves made plus
+ * the {@link Heuristic} estimate of the moves left, using an integer {@link BucketQueue}.
+ * As long as the heuristic is admissible the path returned is a shortest one. A configuration
+ * is reopened if a shorter way to it turns up, so the heuristic does not have to be consistent.
+ *
+ * @author Michael Bauer
+ */
+public class AStarEngine implements SearchEngine {
+    private final Heuristic heuristic;
+
+    /**
+     * Creates an engine guided by the given heuristic.
+     *
+     * @param heuristic An admissible estimate of the moves left.
+     */
+    public AStarEngine(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if one was found.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        recorder.phase("search");
+        Map<Configuration, Node> nodes = new HashMap<>();
+        BucketQueue<Entry> open = new BucketQueue<>();
+        long totalConfigs = 1;
+
+        int estimate = heuristic.estimate(first);
+        nodes.put(first, new Node(null, 0));
+        if (estimate != Heuristic.UNREACHABLE) {
+            open.add(new Entry(first, 0), estimate);
+        }
+
+        while (!open.isEmpty()) {
+            Entry entry = open.poll();
+            Configuration current = entry.config;
+            if (nodes.get(current).moves != entry.moves) {
+                // a shorter way to this configuration was queued after this entry
+                continue;
+            }
+
+            if (current.isSolution()) {
+                List<Configuration> solution = new ArrayList<>();
+                while (current != null) {
+                    solution.addFirst(current);
+                    current = nodes.get(current).pred;
+                }
+                recorder.visited(nodes.size());
+                return new SolverResult(solution, totalConfigs, nodes.size(), recorder.finish());
+            }
+
+            int moves = entry.moves + 1;
+            Collection<Configuration> neighbors = current.getNeighbors();
+            totalConfigs += neighbors.size();
+            recorder.expanded(entry.moves);
+            recorder.generated(neighbors.size());
+            for (Configuration neighbor : neighbors) {
+                Node known = nodes.get(neighbor);
+                if (known != null && moves >= known.moves) {
+                    recorder.duplicate();
+                } else {
+                    nodes.put(neighbor, new Node(current, moves));
+                    estimate = heuristic.estimate(neighbor);
+                    if (estimate != Heuristic.UNREACHABLE) {
+                        open.add(new Entry(neighbor, moves), moves + estimate);
+                    }
+                }
+            }
+        }
+        recorder.visited(nodes.size());
+        return new SolverResult(null, totalConfigs, nodes.size(), recorder.finish());
+    }
+
+    /**
+     * The best known way to a visited configuration.
+     *
+     * @param pred The predecessor on the best known path, or null for the first configuration.
+     * @param moves The number of moves on the best known path.
+     */
+    private record Node(Configuration pred, int moves) {
+    }
+
+    /**
+     * A configuration waiting in the open queue, with the number of moves it was queued at.
+     *
+     * @param config The configuration.
+     * @param moves The number of moves from the first configuration.
+     */
+    private record Entry(Configuration config, int moves) {
+    }
+}
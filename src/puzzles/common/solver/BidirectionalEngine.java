@@ -0,0 +1,234 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A bidirectional breadth-first search engine for puzzles that implement {@link GoalConfiguration}.
+ * One search grows forward from the first configuration and the other grows backward from the
+ * goals, always expanding whichever frontier is smaller, until the two meet. With branching
+ * factor b and solution depth d this visits about 2·b^(d/2) configurations instead of b^d.
+ * Configurations without the capability are handed to a plain {@link BreadthFirstEngine}.
+ * <p>
+ * The backward search can be given a depth bound, for puzzles whose goal sets grow too quickly
+ * going backwards. It then regresses from the goals up to the bound and the forward search
+ * goes the rest of the way. The path is still a shortest one, because when the sides first
+ * meet, the forward layer holds a state of a shortest path at the deepest backward depth.
+ * <p>
+ * The goals themselves can be too many to hold: every goal is a root of the backward search
+ * before anything is expanded. So the engine also has a bound on the number of goals, checked
+ * against the size of {@link GoalConfiguration#getGoals()} before any goal is made. A puzzle
+ * with more goals than that, or a backward depth bound of 0, is searched forward only by the
+ * fallback engine, which tells the goals apart with {@link Configuration#isSolution()}.
+ *
+ * @author Michael Bauer
+ */
+public class BidirectionalEngine implements SearchEngine {
+    /** the most goals seeded unless the engine is given another bound */
+    public static final int DEFAULT_MAX_GOALS = 1 << 16;
+
+    private final int maxBackwardDepth;
+    private final int maxGoals;
+    private final SearchEngine fallback;
+
+    /**
+     * Creates an engine that falls back to a sequential breadth-first search.
+     */
+    public BidirectionalEngine() {
+        this(new BreadthFirstEngine());
+    }
+
+    /**
+     * Creates an engine with the given fallback.
+     *
+     * @param fallback The engine used for configurations that do not implement {@link GoalConfiguration}.
+     */
+    public BidirectionalEngine(SearchEngine fallback) {
+        this(Integer.MAX_VALUE, fallback);
+    }
+
+    /**
+     * Creates an engine whose backward search stops at a depth bound.
+     *
+     * @param maxBackwardDepth The most layers to grow backward from the goals.
+     * @param fallback The engine used for configurations that do not implement {@link GoalConfiguration}.
+     */
+    public BidirectionalEngine(int maxBackwardDepth, SearchEngine fallback) {
+        this(maxBackwardDepth, DEFAULT_MAX_GOALS, fallback);
+    }
+
+    /**
+     * Creates an engine whose backward search stops at a depth bound and only starts from a
+     * bounded number of goals.
+     *
+     * @param maxBackwardDepth The most layers to grow backward from the goals.
+     * @param maxGoals The most goals to seed the backward search with; a puzzle with more is searched forward only.
+     * @param fallback The engine used for configurations that do not implement {@link GoalConfiguration},
+     *                 or have too many goals.
+     */
+    public BidirectionalEngine(int maxBackwardDepth, int maxGoals, SearchEngine fallback) {
+        this.maxBackwardDepth = maxBackwardDepth;
+        this.maxGoals = maxGoals;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if one was found.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        if (!(first instanceof GoalConfiguration goalFirst) || maxBackwardDepth <= 0) {
+            return fallback.solve(first);
+        }
+        // the goals are only counted here; the collection may make them as it is walked
+        Collection<Configuration> goals = goalFirst.getGoals();
+        if (goals.size() > maxGoals) {
+            return fallback.solve(first);
+        }
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        if (first.isSolution()) {
+            recorder.visited(1);
+            return new SolverResult(List.of(first), 1, 1, recorder.finish());
+        }
+
+        Side forward = new Side(true);
+        Side backward = new Side(false);
+        forward.seed(first);
+        for (Configuration goal : goals) {
+            backward.seed(goal);
+        }
+        long totalConfigs = 1 + backward.links.size();
+
+        Configuration meeting = backward.links.containsKey(first) ? first : null;
+        // the depth recorded is the number of layers expanded so far on both sides together
+        for (int depth = 0; meeting == null && !forward.frontier.isEmpty() && !backward.frontier.isEmpty(); depth++) {
+            Side side = forward.frontier.size() <= backward.frontier.size() ||
+                    backward.depth >= maxBackwardDepth ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            recorder.phase(side == forward ? "forward" : "backward");
+            int frontierSize = side.frontier.size();
+            int linksBefore = side.links.size();
+            long generated = side.expandLayer();
+            totalConfigs += generated;
+            recorder.layer(depth, frontierSize, generated);
+            recorder.duplicates(generated - (side.links.size() - linksBefore));
+            recorder.visited(forward.links.size() + backward.links.size());
+            meeting = side.bestMeeting(other);
+        }
+
+        long uniqueConfigs = forward.links.size() + backward.links.size();
+        recorder.phase("path");
+        List<Configuration> path = meeting == null ? null : buildPath(meeting, forward, backward);
+        return new SolverResult(path, totalConfigs, uniqueConfigs, recorder.finish());
+    }
+
+    /**
+     * Joins the forward chain from the first configuration and the backward chain to a goal.
+     *
+     * @param meeting The configuration where the two searches met.
+     * @param forward The forward search.
+     * @param backward The backward search.
+     * @return The path from the first configuration to a goal.
+     */
+    private static List<Configuration> buildPath(Configuration meeting, Side forward, Side backward) {
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = meeting;
+        Link link = forward.links.get(current);
+        // roots are found by depth, since the meeting may be an equal copy of a root rather than the root itself
+        while (link.depth > 0) {
+            path.addFirst(current);
+            current = link.next;
+            link = forward.links.get(current);
+        }
+        path.addFirst(current);
+
+        current = meeting;
+        link = backward.links.get(current);
+        while (link.depth > 0) {
+            current = link.next;
+            path.add(current);
+            link = backward.links.get(current);
+        }
+        return path;
+    }
+
+    /**
+     * Where a visited configuration came from: its predecessor on the forward side or its
+     * successor on the backward side, and how many moves it is from that side's roots.
+     * A root links to itself.
+     */
+    private record Link(Configuration next, int depth) {
+    }
+
+    /**
+     * One direction of the search.
+     */
+    private static class Side {
+        private final boolean forward;
+        private final Map<Configuration, Link> links = new HashMap<>();
+        private List<Configuration> frontier = new ArrayList<>();
+        private int depth;
+
+        Side(boolean forward) {
+            this.forward = forward;
+        }
+
+        /**
+         * Adds a root configuration to this side.
+         *
+         * @param root The first configuration or one of the goals.
+         */
+        void seed(Configuration root) {
+            if (links.putIfAbsent(root, new Link(root, 0)) == null) {
+                frontier.add(root);
+            }
+        }
+
+        /**
+         * Expands the whole current layer of this side.
+         *
+         * @return The number of configurations generated.
+         */
+        long expandLayer() {
+            long generated = 0;
+            List<Configuration> next = new ArrayList<>();
+            for (Configuration current : frontier) {
+                int depth = links.get(current).depth + 1;
+                Collection<Configuration> children = forward ? current.getNeighbors()
+                        : ((GoalConfiguration) current).getPredecessors();
+                generated += children.size();
+                for (Configuration child : children) {
+                    if (links.putIfAbsent(child, new Link(current, depth)) == null) {
+                        next.add(child);
+                    }
+                }
+            }
+            frontier = next;
+            depth++;
+            return generated;
+        }
+
+        /**
+         * Finds the configuration of the newest layer that gives the shortest joined path.
+         * Checking the whole layer, rather than stopping at the first contact, is what keeps
+         * the joined path a shortest one.
+         *
+         * @param other The opposite side of the search.
+         * @return The best meeting configuration, or null if the two sides have not met yet.
+         */
+        Configuration bestMeeting(Side other) {
+            Configuration best = null;
+            int bestDepth = Integer.MAX_VALUE;
+            for (Configuration candidate : frontier) {
+                Link link = other.links.get(candidate);
+                if (link != null && link.depth < bestDepth) {
+                    best = candidate;
+                    bestDepth = link.depth;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package puzzles.common.solver;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A sequential breadth-first search engine. Discovered configurations are kept in a
+ * {@link StateStore}, whose ids double as the queue, and the store only lives for the
+ * duration of one call to {@link #solve(Configuration)}. A single engine can safely be
+ * shared between threads and nothing is kept alive after a solve.
+ * An engine made with a {@link Pruner} drops the neighbors it rejects before they are stored,
+ * so dead ends are never expanded or counted as unique.
+ *
+ * @author Michael Bauer
+ */
+public class BreadthFirstEngine implements SearchEngine {
+    private final Pruner pruner;
+
+    /**
+     * Creates an engine that searches every configuration.
+     */
+    public BreadthFirstEngine() {
+        this(Pruner.NONE);
+    }
+
+    /**
+     * Creates an engine that drops the configurations a pruner rejects.
+     *
+     * @param pruner The test for dead ends; it must be safe to share if the engine is.
+     */
+    public BreadthFirstEngine(Pruner pruner) {
+        this.pruner = pruner;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     * Performs a breadth-first search to explore all possible configurations until a solution is found.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with the shortest solution path if one was found.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        recorder.phase("search");
+        StateStore store = new StateStore();
+        Expansion expansion = new Expansion(store, recorder, pruner);
+
+        store.add(first, StateStore.NO_PARENT);
+
+        // ids are handed out in breadth-first order, so a depth ends where the one before it had grown to
+        int depth = 0;
+        int depthEnd = 1;
+        for (int next = 0; next < store.size(); next++) {
+            Configuration current = store.get(next);
+
+            if (current.isSolution()) {
+                recorder.visited(store.size());
+                recorder.phase("path");
+                List<Configuration> path = store.pathTo(next);
+                return new SolverResult(path, expansion.totalConfigs, store.size(), recorder.finish());
+            }
+
+            if (next == depthEnd) {
+                depth++;
+                depthEnd = store.size();
+            }
+            recorder.expanded(depth);
+            expansion.parent = next;
+            current.forEachNeighbor(expansion);
+        }
+        recorder.visited(store.size());
+        return new SolverResult(null, expansion.totalConfigs, store.size(), recorder.finish());
+    }
+
+    /**
+     * Receives the neighbors of the configuration being expanded and adds the new ones to the store.
+     * One is made per solve and reused for every expansion.
+     */
+    private static class Expansion implements Consumer<Configuration> {
+        private final StateStore store;
+        private final SolverStats.Recorder recorder;
+        private final Pruner pruner;
+        private int parent;
+        private long totalConfigs = 1;
+
+        Expansion(StateStore store, SolverStats.Recorder recorder, Pruner pruner) {
+            this.store = store;
+            this.recorder = recorder;
+            this.pruner = pruner;
+        }
+
+        @Override
+        public void accept(Configuration neighbor) {
+            totalConfigs++;
+            recorder.generated();
+            if (pruner.isDead(neighbor)) {
+                recorder.pruned();
+                return;
+            }
+            if (store.add(neighbor, parent) < 0) {
+                recorder.duplicate();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package puzzles.common.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A priority queue for small non-negative integer priorities. Each priority has its own bucket,
+ * so adding and removing are constant time apart from skipping empty buckets. Within a bucket
+ * the most recently added element comes out first.
+ *
+ * @param <T> the type of element held
+ *
+ * @author Michael Bauer
+ */
+class BucketQueue<T> {
+    private final List<ArrayDeque<T>> buckets = new ArrayList<>();
+    private int min = 0;
+    private int size = 0;
+
+    /**
+     * Adds an element.
+     *
+     * @param element The element to add.
+     * @param priority The priority of the element, where lower comes out first.
+     */
+    void add(T element, int priority) {
+        while (buckets.size() <= priority) {
+            buckets.add(new ArrayDeque<>());
+        }
+        buckets.get(priority).push(element);
+        min = Math.min(min, priority);
+        size++;
+    }
+
+    /**
+     * Removes an element with the lowest priority.
+     *
+     * @return The element, or null if the queue is empty.
+     */
+    T poll() {
+        if (size == 0) {
+            return null;
+        }
+        while (buckets.get(min).isEmpty()) {
+            min++;
+        }
+        size--;
+        return buckets.get(min).pop();
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return true if there are no elements left
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
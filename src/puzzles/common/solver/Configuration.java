@@ -1,6 +1,7 @@
 package puzzles.common.solver;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface Configuration {
     boolean isSolution();
@@ -8,4 +9,17 @@ public interface Configuration {
     boolean equals(Object other);
     int hashCode();
     String toString();
+
+    /**
+     * Passes every neighbor of this configuration to the given consumer, in the same order
+     * as {@link #getNeighbors()}. Configurations can override this to hand each neighbor over
+     * as it is made, without building a collection first.
+     *
+     * @param consumer The consumer that receives each neighbor.
+     */
+    default void forEachNeighbor(Consumer<Configuration> consumer) {
+        for (Configuration neighbor : getNeighbors()) {
+            consumer.accept(neighbor);
+        }
+    }
 }
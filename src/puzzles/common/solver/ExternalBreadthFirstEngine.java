@@ -0,0 +1,474 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * An out-of-core breadth-first search engine for searches that outgrow the heap. Each depth
+ * layer is kept on disk as a file of fixed-size records, sorted by the bytes of the encoded
+ * configuration and read back through memory-mapped {@link FileChannel}s. Each record also holds
+ * the index of its parent in the previous layer, as a long since a layer can hold more records
+ * than an int can count, so the solution path can be rebuilt from disk.
+ *
+ * Children are collected in an in-memory buffer bounded by the heap budget. Whenever it fills up
+ * it is sorted and spilled as a run. Duplicate detection is delayed until the layer is finished:
+ * the runs are merged together and against every earlier layer, and only unseen configurations
+ * make it into the next layer file. The heap only ever holds the run buffer and the
+ * configuration being expanded.
+ *
+ * @author Michael Bauer
+ */
+public class ExternalBreadthFirstEngine implements SearchEngine {
+    /** the smallest run buffer the engine will use, whatever the budget */
+    private static final int MIN_RUN_RECORDS = 1024;
+    /** the size of the chunks the next layer is written in */
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final StateCodec codec;
+    private final long heapBudget;
+    private final Path scratchDir;
+
+    /**
+     * Creates an engine that keeps its layer files in the system temporary directory.
+     *
+     * @param codec The codec for the configurations of the puzzle being solved.
+     * @param heapBudget The number of heap bytes the run buffer may use.
+     */
+    public ExternalBreadthFirstEngine(StateCodec codec, long heapBudget) {
+        this(codec, heapBudget, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param codec The codec for the configurations of the puzzle being solved.
+     * @param heapBudget The number of heap bytes the run buffer may use.
+     * @param scratchDir The directory to keep the layer and run files in.
+     */
+    public ExternalBreadthFirstEngine(StateCodec codec, long heapBudget, Path scratchDir) {
+        this.codec = codec;
+        this.heapBudget = heapBudget;
+        this.scratchDir = scratchDir;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration. All of the scratch files
+     * are deleted before this returns.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if one was found.
+     * @throws UncheckedIOException if the scratch files cannot be written or read
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        Path dir = null;
+        try {
+            Files.createDirectories(scratchDir);
+            dir = Files.createTempDirectory(scratchDir, "bfs-");
+            return new Search(dir).run(first);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (dir != null) {
+                deleteAll(dir);
+            }
+        }
+    }
+
+    /**
+     * Deletes the scratch directory and every file in it.
+     *
+     * @param dir The scratch directory.
+     */
+    private static void deleteAll(Path dir) {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            // leftover scratch files are harmless, so there is nothing more to do
+        }
+    }
+
+    /**
+     * The state of one solve.
+     */
+    private class Search {
+        private final Path dir;
+        private final int keySize = codec.recordSize();
+        private final int recordSize = keySize + Long.BYTES;
+        private final List<Path> layers = new ArrayList<>();
+        private final List<Long> layerSizes = new ArrayList<>();
+        private int files = 0;
+
+        Search(Path dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Runs the search one layer at a time.
+         *
+         * @param first The initial configuration of the puzzle.
+         * @return The result of the search.
+         * @throws IOException if a scratch file cannot be written or read
+         */
+        SolverResult run(Configuration first) throws IOException {
+            SolverStats.Recorder recorder = new SolverStats.Recorder();
+            recorder.phase("expand");
+            byte[] record = new byte[recordSize];
+            codec.encode(first, record, 0);
+            putLong(record, keySize, StateStore.NO_PARENT);
+            Path layerZero = nextFile();
+            Files.write(layerZero, record);
+            layers.add(layerZero);
+            layerSizes.add(1L);
+
+            long capacity = Math.max(MIN_RUN_RECORDS, heapBudget / (recordSize + 2L * Integer.BYTES));
+            int runRecords = (int) Math.min(capacity, (Integer.MAX_VALUE - 8) / recordSize);
+            byte[] buffer = new byte[runRecords * recordSize];
+            long totalConfigs = 1;
+            long uniqueConfigs = 1;
+
+            for (int depth = 0; ; depth++) {
+                recorder.phase("expand");
+                List<Path> runs = new ArrayList<>();
+                long generated = 0;
+                int count = 0;
+                try (RecordFile layer = new RecordFile(layers.get(depth), recordSize)) {
+                    for (long i = 0; i < layer.size(); i++) {
+                        layer.read(i, record);
+                        Configuration current = codec.decode(record, 0);
+                        if (current.isSolution()) {
+                            recorder.layer(depth, i, generated);
+                            recorder.phase("path");
+                            List<Configuration> path = buildPath(depth, i);
+                            return new SolverResult(path, totalConfigs, uniqueConfigs, recorder.finish());
+                        }
+                        for (Configuration neighbor : current.getNeighbors()) {
+                            totalConfigs++;
+                            generated++;
+                            int offset = count * recordSize;
+                            codec.encode(neighbor, buffer, offset);
+                            putLong(buffer, offset + keySize, i);
+                            if (++count == runRecords) {
+                                runs.add(writeRun(buffer, count));
+                                count = 0;
+                            }
+                        }
+                    }
+                    recorder.layer(depth, layer.size(), generated);
+                }
+                if (count > 0) {
+                    runs.add(writeRun(buffer, count));
+                }
+
+                recorder.phase("merge");
+                Path next = nextFile();
+                long size = mergeRuns(runs, next);
+                for (Path run : runs) {
+                    Files.delete(run);
+                }
+                recorder.duplicates(generated - size);
+                if (size == 0) {
+                    return new SolverResult(null, totalConfigs, uniqueConfigs, recorder.finish());
+                }
+                layers.add(next);
+                layerSizes.add(size);
+                uniqueConfigs += size;
+                recorder.visited(uniqueConfigs);
+            }
+        }
+
+        /**
+         * Sorts the buffered records by key, drops repeated keys and writes the rest as a run.
+         *
+         * @param buffer The buffered records.
+         * @param count The number of records in the buffer.
+         * @return The run file.
+         * @throws IOException if the run cannot be written
+         */
+        private Path writeRun(byte[] buffer, int count) throws IOException {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            sort(buffer, order, new int[count], 0, count);
+
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == 0 || compareKeys(buffer, order[i] * recordSize, buffer, order[i - 1] * recordSize) != 0) {
+                    order[kept++] = order[i];
+                }
+            }
+
+            Path run = nextFile();
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) kept * recordSize);
+                for (int i = 0; i < kept; i++) {
+                    out.put(buffer, order[i] * recordSize, recordSize);
+                }
+            }
+            return run;
+        }
+
+        /**
+         * Merges the sorted runs into the next layer, keeping the first record of every key that
+         * is not already in one of the earlier layers.
+         *
+         * @param runs The sorted runs of children.
+         * @param next The file to write the next layer to.
+         * @return The number of records in the next layer.
+         * @throws IOException if a file cannot be written or read
+         */
+        private long mergeRuns(List<Path> runs, Path next) throws IOException {
+            List<RecordFile> open = new ArrayList<>();
+            try (FileChannel out = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                PriorityQueue<Cursor> merge = new PriorityQueue<>(
+                        (a, b) -> compareKeys(a.record, 0, b.record, 0));
+                for (Path run : runs) {
+                    RecordFile file = new RecordFile(run, recordSize);
+                    open.add(file);
+                    Cursor cursor = new Cursor(file);
+                    if (cursor.advance()) {
+                        merge.add(cursor);
+                    }
+                }
+                List<Cursor> seen = new ArrayList<>();
+                for (Path layer : layers) {
+                    RecordFile file = new RecordFile(layer, recordSize);
+                    open.add(file);
+                    Cursor cursor = new Cursor(file);
+                    if (cursor.advance()) {
+                        seen.add(cursor);
+                    }
+                }
+
+                ByteBuffer chunk = ByteBuffer.allocate(Math.max(recordSize, WRITE_BUFFER_BYTES / recordSize * recordSize));
+                byte[] last = null;
+                long size = 0;
+                while (!merge.isEmpty()) {
+                    Cursor cursor = merge.poll();
+                    byte[] record = cursor.record.clone();
+                    if (cursor.advance()) {
+                        merge.add(cursor);
+                    }
+                    if (last != null && compareKeys(record, 0, last, 0) == 0) {
+                        continue;
+                    }
+                    last = record;
+                    if (!inEarlierLayer(record, seen)) {
+                        if (chunk.remaining() < recordSize) {
+                            writeFully(out, chunk);
+                        }
+                        chunk.put(record);
+                        size++;
+                    }
+                }
+                writeFully(out, chunk);
+                return size;
+            } finally {
+                for (RecordFile file : open) {
+                    file.close();
+                }
+            }
+        }
+
+        /**
+         * Checks if a key is in one of the earlier layers. The keys arrive in sorted order, so each
+         * layer cursor only ever moves forward.
+         *
+         * @param record The record whose key to look for.
+         * @param seen One cursor per earlier layer that still has records.
+         * @return true if the key was already seen
+         */
+        private boolean inEarlierLayer(byte[] record, List<Cursor> seen) {
+            boolean found = false;
+            Iterator<Cursor> cursors = seen.iterator();
+            while (cursors.hasNext()) {
+                Cursor cursor = cursors.next();
+                int cmp;
+                while ((cmp = compareKeys(cursor.record, 0, record, 0)) < 0) {
+                    if (!cursor.advance()) {
+                        break;
+                    }
+                }
+                if (cmp == 0) {
+                    found = true;
+                } else if (cmp < 0) {
+                    cursors.remove();
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Rebuilds the solution path by following parent indices back through the layer files.
+         *
+         * @param depth The layer of the solution.
+         * @param index The index of the solution in its layer.
+         * @return The path from the first configuration to the solution.
+         * @throws IOException if a layer file cannot be read
+         */
+        private List<Configuration> buildPath(int depth, long index) throws IOException {
+            List<Configuration> path = new ArrayList<>();
+            byte[] record = new byte[recordSize];
+            for (int d = depth; d >= 0; d--) {
+                try (RecordFile layer = new RecordFile(layers.get(d), recordSize)) {
+                    layer.read(index, record);
+                }
+                path.addFirst(codec.decode(record, 0));
+                index = getLong(record, keySize);
+            }
+            return path;
+        }
+
+        /**
+         * Sorts record indices by key. This is a stable merge sort, so among equal keys the
+         * record generated first comes first.
+         */
+        private void sort(byte[] buffer, int[] order, int[] scratch, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sort(buffer, order, scratch, from, mid);
+            sort(buffer, order, scratch, mid, to);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < mid &&
+                        compareKeys(buffer, order[left] * recordSize, buffer, order[right] * recordSize) <= 0)) {
+                    scratch[i] = order[left++];
+                } else {
+                    scratch[i] = order[right++];
+                }
+            }
+            System.arraycopy(scratch, from, order, from, to - from);
+        }
+
+        /**
+         * Compares the keys of two records as unsigned bytes.
+         */
+        private int compareKeys(byte[] a, int aOffset, byte[] b, int bOffset) {
+            return Arrays.compareUnsigned(a, aOffset, aOffset + keySize, b, bOffset, bOffset + keySize);
+        }
+
+        /**
+         * Gets a fresh scratch file name.
+         *
+         * @return The path of the new file.
+         */
+        private Path nextFile() {
+            return dir.resolve("part-" + (files++) + ".bin");
+        }
+    }
+
+    /**
+     * Writes out everything in the buffer and clears it.
+     */
+    private static void writeFully(FileChannel out, ByteBuffer chunk) throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            out.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Writes a long in big-endian order.
+     */
+    private static void putLong(byte[] dst, int offset, long value) {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            dst[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Reads a long in big-endian order.
+     */
+    private static long getLong(byte[] src, int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (src[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * A read-only, memory-mapped file of fixed-size records. Large files are mapped in several
+     * segments, since a single mapping is limited to 2GB.
+     */
+    private static class RecordFile implements AutoCloseable {
+        private final FileChannel channel;
+        private final MappedByteBuffer[] segments;
+        private final int recordSize;
+        private final long recordsPerSegment;
+        private final long size;
+
+        RecordFile(Path path, int recordSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.recordSize = recordSize;
+            this.size = channel.size() / recordSize;
+            this.recordsPerSegment = Integer.MAX_VALUE / recordSize;
+            int count = (int) ((size + recordsPerSegment - 1) / recordsPerSegment);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long first = i * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * recordSize, records * recordSize);
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        void read(long index, byte[] dst) {
+            int segment = (int) (index / recordsPerSegment);
+            int offset = (int) (index % recordsPerSegment) * recordSize;
+            segments[segment].get(offset, dst, 0, recordSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A position in a record file that is read in order.
+     */
+    private static class Cursor {
+        private final RecordFile file;
+        private final byte[] record;
+        private long next = 0;
+
+        Cursor(RecordFile file) {
+            this.file = file;
+            this.record = new byte[file.recordSize];
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return true if there was another record, false if the file is used up
+         */
+        boolean advance() {
+            if (next == file.size()) {
+                return false;
+            }
+            file.read(next++, record);
+            return true;
+        }
+    }
+}
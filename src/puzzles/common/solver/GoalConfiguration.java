@@ -0,0 +1,28 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * An optional capability for puzzles whose solutions are known up front. A configuration
+ * that implements this can be searched from both ends by {@link BidirectionalEngine}.
+ *
+ * @author Michael Bauer
+ */
+public interface GoalConfiguration extends Configuration {
+
+    /**
+     * Gets every configuration that is a solution of this puzzle. A puzzle with a great many
+     * goals can return a view that counts them for {@link Collection#size()} and only makes
+     * them while it is iterated, so callers should check the size first.
+     *
+     * @return The goal configurations, each of which returns true from {@link #isSolution()}.
+     */
+    Collection<Configuration> getGoals();
+
+    /**
+     * Gets every configuration that has this configuration as one of its neighbors.
+     *
+     * @return The predecessor configurations.
+     */
+    Collection<Configuration> getPredecessors();
+}
@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+/**
+ * An estimate of how many moves a configuration is from a solution, used by the informed
+ * search engines. The engines only return optimal paths when the heuristic is admissible,
+ * that is, when it never overestimates the true number of moves.
+ *
+ * @author Michael Bauer
+ */
+@FunctionalInterface
+public interface Heuristic {
+    /** the estimate for a configuration that can never reach a solution */
+    int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Estimates the number of moves needed to reach a solution.
+     *
+     * @param config The configuration to estimate.
+     * @return A lower bound on the remaining moves, 0 for a solution, or {@link #UNREACHABLE}.
+     */
+    int estimate(Configuration config);
+}
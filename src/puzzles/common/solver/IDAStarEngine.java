@@ -0,0 +1,107 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * An iterative deepening A* (IDA*) search engine. It runs depth-first searches bounded by
+ * moves made plus the {@link Heuristic} estimate, raising the bound each round to the smallest
+ * value that was cut off. Only the current path is held in memory, so it suits puzzles where
+ * memory rather than time is the limit, and with an admissible heuristic the path is a shortest one.
+ * Because no visited set is kept, the unique count reported is the longest path that was held.
+ *
+ * @author Michael Bauer
+ */
+public class IDAStarEngine implements SearchEngine {
+    /** the bound returned by a round that found a solution */
+    private static final int FOUND = -1;
+
+    private final Heuristic heuristic;
+
+    /**
+     * Creates an engine guided by the given heuristic.
+     *
+     * @param heuristic An admissible estimate of the moves left.
+     */
+    public IDAStarEngine(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if one was found.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        Search search = new Search();
+        search.recorder.phase("search");
+        int bound = heuristic.estimate(first);
+        search.path.add(first);
+        search.onPath.add(first);
+
+        while (bound != Heuristic.UNREACHABLE) {
+            bound = search.run(first, 0, bound);
+            if (bound == FOUND) {
+                search.recorder.visited(search.peakDepth);
+                return new SolverResult(search.path, search.totalConfigs, search.peakDepth,
+                        search.recorder.finish());
+            }
+        }
+        search.recorder.visited(search.peakDepth);
+        return new SolverResult(null, search.totalConfigs, search.peakDepth, search.recorder.finish());
+    }
+
+    /**
+     * The state of one solve: the current path and the counts.
+     */
+    private class Search {
+        private final List<Configuration> path = new ArrayList<>();
+        private final Set<Configuration> onPath = new HashSet<>();
+        private final SolverStats.Recorder recorder = new SolverStats.Recorder();
+        private long totalConfigs = 1;
+        private int peakDepth = 1;
+
+        /**
+         * Searches depth first below the given configuration.
+         *
+         * @param current The configuration at the end of the path.
+         * @param moves The number of moves made to reach it.
+         * @param bound The largest moves plus estimate allowed this round.
+         * @return {@link #FOUND}, or the smallest moves plus estimate that was over the bound.
+         */
+        int run(Configuration current, int moves, int bound) {
+            int estimate = heuristic.estimate(current);
+            if (estimate == Heuristic.UNREACHABLE) {
+                return Heuristic.UNREACHABLE;
+            }
+            if (moves + estimate > bound) {
+                return moves + estimate;
+            }
+            if (current.isSolution()) {
+                return FOUND;
+            }
+            int next = Heuristic.UNREACHABLE;
+            Collection<Configuration> neighbors = current.getNeighbors();
+            totalConfigs += neighbors.size();
+            recorder.expanded(moves);
+            recorder.generated(neighbors.size());
+            for (Configuration neighbor : neighbors) {
+                if (!onPath.add(neighbor)) {
+                    recorder.duplicate();
+                } else {
+                    path.add(neighbor);
+                    peakDepth = Math.max(peakDepth, path.size());
+                    int result = run(neighbor, moves + 1, bound);
+                    if (result == FOUND) {
+                        return FOUND;
+                    }
+                    next = Math.min(next, result);
+                    path.removeLast();
+                    onPath.remove(neighbor);
+                }
+            }
+            return next;
+        }
+    }
+}
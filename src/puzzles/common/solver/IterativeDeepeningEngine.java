@@ -0,0 +1,151 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An iterative-deepening depth-first search engine for puzzles that implement
+ * {@link MutableConfiguration}. It works on a single copy of the first configuration, making
+ * and undoing moves in place, and keeps one move buffer per level. Its memory therefore grows
+ * only with the solution depth, not with the number of configurations explored. Because it keeps
+ * no visited set, it stops deepening once the depth limit is reached; if some branch was still cut
+ * off there, the puzzle is handed to the fallback engine, so a result without a path always means
+ * there is no solution. The path returned is a shortest one. Configurations without the capability
+ * are handed to the fallback engine as well, a plain {@link BreadthFirstEngine} unless another is given.
+ *
+ * @author Michael Bauer
+ */
+public class IterativeDeepeningEngine implements SearchEngine {
+    /** the default depth limit */
+    public static final int DEFAULT_MAX_DEPTH = 30;
+    /** marks that no move has been made yet at the start of the path */
+    private static final int NO_MOVE = Integer.MIN_VALUE;
+
+    private final int maxDepth;
+    private final SearchEngine fallback;
+
+    /**
+     * Creates an engine with the default depth limit.
+     */
+    public IterativeDeepeningEngine() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param maxDepth The longest solution to look for.
+     */
+    public IterativeDeepeningEngine(int maxDepth) {
+        this(maxDepth, new BreadthFirstEngine());
+    }
+
+    /**
+     * Creates an engine with the given fallback.
+     *
+     * @param maxDepth The longest solution to look for.
+     * @param fallback The engine used for configurations that do not implement {@link MutableConfiguration},
+     *                 and for puzzles whose solution may be deeper than the depth limit.
+     */
+    public IterativeDeepeningEngine(int maxDepth, SearchEngine fallback) {
+        this.maxDepth = maxDepth;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if there is one.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        if (!(first instanceof MutableConfiguration mutable)) {
+            return fallback.solve(first);
+        }
+        Search search = new Search(mutable.copy());
+        search.recorder.phase("search");
+
+        for (int limit = 0; limit <= maxDepth; limit++) {
+            search.cutOff = false;
+            if (search.run(0, limit, NO_MOVE)) {
+                search.recorder.visited(limit + 1);
+                search.recorder.phase("path");
+                List<Configuration> path = new ArrayList<>();
+                MutableConfiguration replay = mutable.copy();
+                path.add(replay.copy());
+                for (int depth = 0; depth < limit; depth++) {
+                    replay.makeMove(search.path[depth]);
+                    path.add(replay.copy());
+                }
+                return new SolverResult(path, search.totalConfigs, limit + 1, search.recorder.finish());
+            }
+            if (!search.cutOff) {
+                // every branch ended before the limit, so going deeper cannot help
+                search.recorder.visited(search.peakDepth);
+                return new SolverResult(null, search.totalConfigs, search.peakDepth, search.recorder.finish());
+            }
+        }
+        // the limit cut the search off, so there may still be a deeper solution
+        return fallback.solve(first);
+    }
+
+    /**
+     * The state of one solve: the configuration being searched, the moves on the current path
+     * and one move buffer per depth.
+     */
+    private class Search {
+        private final MutableConfiguration state;
+        private final int[][] buffers = new int[maxDepth][];
+        private final int[] path = new int[maxDepth];
+        private final SolverStats.Recorder recorder = new SolverStats.Recorder();
+        private long totalConfigs = 1;
+        private int peakDepth = 1;
+        private boolean cutOff;
+
+        Search(MutableConfiguration state) {
+            this.state = state;
+        }
+
+        /**
+         * Searches depth first from the current state.
+         *
+         * @param depth The number of moves made so far.
+         * @param limit The number of moves allowed this round.
+         * @param previous The last move made, or {@link #NO_MOVE}.
+         * @return true if a solution was found, in which case the state is left on it
+         */
+        boolean run(int depth, int limit, int previous) {
+            if (state.isSolution()) {
+                return true;
+            }
+            if (depth == limit) {
+                cutOff = true;
+                return false;
+            }
+            if (buffers[depth] == null) {
+                buffers[depth] = new int[state.maxMoves()];
+            }
+            int[] moves = buffers[depth];
+            int count = state.generateMoves(moves);
+            totalConfigs += count;
+            recorder.expanded(depth);
+            recorder.generated(count);
+            peakDepth = Math.max(peakDepth, depth + 2);
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (previous != NO_MOVE && state.undoes(move, previous)) {
+                    recorder.duplicate();
+                    continue;
+                }
+                state.makeMove(move);
+                path[depth] = move;
+                if (run(depth + 1, limit, move)) {
+                    return true;
+                }
+                state.unmakeMove(move);
+            }
+            return false;
+        }
+    }
+}
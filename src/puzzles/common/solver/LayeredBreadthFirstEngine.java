@@ -0,0 +1,176 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A breadth-first search engine for {@link LayeredConfiguration}s. Since a move always takes a
+ * configuration one layer further, a duplicate can only turn up in the layer being built, so
+ * the engine keeps a {@link StateStore} for the layer it expands and the one it builds, and
+ * drops the older one after every layer. Of earlier layers it only keeps a link per
+ * configuration, the id of its parent and the index of the move from it, packed in a long.
+ * The path is rebuilt by following the links back to the first configuration and replaying
+ * the moves forward from there. The most it holds at once is two layers, rather than every
+ * configuration seen, and it finds the same path as a {@link BreadthFirstEngine}.
+ *
+ * @author Michael Bauer
+ */
+public class LayeredBreadthFirstEngine implements SearchEngine {
+    private final Pruner pruner;
+
+    /**
+     * Creates an engine that searches every configuration.
+     */
+    public LayeredBreadthFirstEngine() {
+        this(Pruner.NONE);
+    }
+
+    /**
+     * Creates an engine that drops the configurations a pruner rejects.
+     *
+     * @param pruner The test for dead ends; it must be safe to share if the engine is.
+     */
+    public LayeredBreadthFirstEngine(Pruner pruner) {
+        this.pruner = pruner;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration, one layer at a time.
+     *
+     * @param first The initial configuration of the puzzle, a {@link LayeredConfiguration}.
+     * @return The result of the search, with the shortest solution path if one was found.
+     * @throws IllegalArgumentException if the first configuration is not layered, or a neighbor
+     * is not in the layer after the configuration it came from
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        if (!(first instanceof LayeredConfiguration)) {
+            throw new IllegalArgumentException("Not a layered configuration: " + first.getClass().getName());
+        }
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        recorder.phase("search");
+        List<long[]> links = new ArrayList<>();
+        StateStore layer = new StateStore();
+        layer.add(first, StateStore.NO_PARENT);
+        links.add(new long[]{link(StateStore.NO_PARENT, 0)});
+        Expansion expansion = new Expansion(recorder, pruner);
+        // the configurations of every finished layer, the one being expanded included
+        long unique = 1;
+
+        for (int depth = 0; layer.size() > 0; depth++) {
+            expansion.startLayer(((LayeredConfiguration) layer.get(0)).getLayer() + 1);
+            for (int id = 0; id < layer.size(); id++) {
+                if (layer.get(id).isSolution()) {
+                    recorder.visited(layer.size() + expansion.next.size());
+                    recorder.phase("path");
+                    List<Configuration> path = replay(first, links, id);
+                    return new SolverResult(path, expansion.totalConfigs, unique + expansion.next.size(), recorder.finish());
+                }
+                recorder.expanded(depth);
+                expansion.parent = id;
+                expansion.move = 0;
+                layer.get(id).forEachNeighbor(expansion);
+            }
+            recorder.visited(layer.size() + expansion.next.size());
+            links.add(Arrays.copyOf(expansion.links, expansion.next.size()));
+            layer = expansion.next;
+            unique += layer.size();
+        }
+        return new SolverResult(null, expansion.totalConfigs, unique, recorder.finish());
+    }
+
+    /**
+     * Packs the parent id of a configuration and the index of the move from it into one long.
+     *
+     * @param parent The id of the parent in the layer before, or {@link StateStore#NO_PARENT}.
+     * @param move The index of the configuration among its parent's neighbors.
+     * @return The link
+     */
+    private static long link(int parent, int move) {
+        return ((long) parent << 32) | (move & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Rebuilds the path to a configuration of the last layer by following the links back to
+     * the first configuration and making the same moves again from there.
+     *
+     * @param first The initial configuration.
+     * @param links The links of every layer, the last one holding the configuration.
+     * @param id The id of the configuration in the last layer.
+     * @return The path from the first configuration to the given one.
+     */
+    private static List<Configuration> replay(Configuration first, List<long[]> links, int id) {
+        int[] moves = new int[links.size() - 1];
+        for (int depth = links.size() - 1; depth > 0; depth--) {
+            long link = links.get(depth)[id];
+            moves[depth - 1] = (int) link;
+            id = (int) (link >> 32);
+        }
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = first;
+        path.add(current);
+        for (int move : moves) {
+            current = new ArrayList<>(current.getNeighbors()).get(move);
+            path.add(current);
+        }
+        return path;
+    }
+
+    /**
+     * Receives the neighbors of the configurations of one layer and adds the new ones to the
+     * store of the next. One is made per solve and reused for every layer.
+     */
+    private static class Expansion implements Consumer<Configuration> {
+        private final SolverStats.Recorder recorder;
+        private final Pruner pruner;
+        private StateStore next;
+        private long[] links;
+        private int layerNumber;
+        private int parent;
+        private int move;
+        private long totalConfigs = 1;
+
+        Expansion(SolverStats.Recorder recorder, Pruner pruner) {
+            this.recorder = recorder;
+            this.pruner = pruner;
+        }
+
+        /**
+         * Starts building a new layer.
+         *
+         * @param layerNumber The layer every neighbor must be in.
+         */
+        void startLayer(int layerNumber) {
+            this.layerNumber = layerNumber;
+            this.next = new StateStore();
+            this.links = new long[16];
+        }
+
+        @Override
+        public void accept(Configuration neighbor) {
+            totalConfigs++;
+            recorder.generated();
+            if (((LayeredConfiguration) neighbor).getLayer() != layerNumber) {
+                throw new IllegalArgumentException("Neighbor is not in layer " + layerNumber + ": " + neighbor);
+            }
+            if (pruner.isDead(neighbor)) {
+                // moves are numbered by neighbor order, so a dropped neighbor still uses one up
+                move++;
+                recorder.pruned();
+                return;
+            }
+            int id = next.add(neighbor, parent);
+            if (id < 0) {
+                recorder.duplicate();
+            } else {
+                if (id == links.length) {
+                    links = Arrays.copyOf(links, links.length * 2);
+                }
+                links[id] = link(parent, move);
+            }
+            move++;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package puzzles.common.solver;
+
+/**
+ * An optional capability for puzzles where every move takes the configuration exactly one
+ * layer further, like Hoppers, where every jump removes one frog. Configurations of different
+ * layers can then never be equal, so {@link LayeredBreadthFirstEngine} only has to remember
+ * the layer it is building to find every duplicate.
+ *
+ * @author Michael Bauer
+ */
+public interface LayeredConfiguration extends Configuration {
+
+    /**
+     * Gets the layer of this configuration. Every neighbor must be in the layer after it.
+     *
+     * @return The layer number.
+     */
+    int getLayer();
+}
@@ -0,0 +1,62 @@
+package puzzles.common.solver;
+
+/**
+ * An optional capability for configurations that can be searched in place. Legal moves are
+ * listed as compact ints, and a move can be applied to the configuration itself and later
+ * undone, so a depth-first search like {@link IterativeDeepeningEngine} needs no new
+ * configuration per node.
+ *
+ * @author Michael Bauer
+ */
+public interface MutableConfiguration extends Configuration {
+
+    /**
+     * Gets the most moves any configuration of this puzzle can have, which is the buffer
+     * size {@link #generateMoves(int[])} needs.
+     *
+     * @return The largest possible number of legal moves.
+     */
+    int maxMoves();
+
+    /**
+     * Lists the legal moves of this configuration. Moves that would leave the configuration
+     * unchanged are left out.
+     *
+     * @param moves The buffer to fill, at least {@link #maxMoves()} long.
+     * @return The number of moves written to the buffer.
+     */
+    int generateMoves(int[] moves);
+
+    /**
+     * Applies a move in place.
+     *
+     * @param move A move listed by {@link #generateMoves(int[])} for the current configuration.
+     */
+    void makeMove(int move);
+
+    /**
+     * Undoes the last move made.
+     *
+     * @param move The move that was made.
+     */
+    void unmakeMove(int move);
+
+    /**
+     * Checks if a move takes the configuration straight back to where it was before the previous move.
+     * Searches use this to skip pointless back-and-forth moves.
+     *
+     * @param move The move being considered.
+     * @param previous The move made just before it.
+     * @return true if the move undoes the previous one
+     */
+    default boolean undoes(int move, int previous) {
+        return false;
+    }
+
+    /**
+     * Makes an independent copy of this configuration, which later moves on either one do not affect.
+     *
+     * @return The copy.
+     */
+    MutableConfiguration copy();
+}
@@ -0,0 +1,244 @@
+package puzzles.common.solver;
+
+import java.io.Serial;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A level-synchronous parallel breadth-first search engine. Each depth layer of the
+ * frontier is split across a {@link ForkJoinPool}, and the workers check for solutions,
+ * call {@link Configuration#getNeighbors()} and detect duplicates against concurrent maps,
+ * so none of the per-configuration work is left to a single thread.
+ *
+ * In deterministic mode a new child is claimed for the lowest frontier index that generated
+ * it, and a second parallel pass keeps every child under its winner, in the order it was
+ * generated. That is the order a sequential search adds them in, so the solution path is
+ * exactly that of {@link BreadthFirstEngine}. Otherwise the workers keep children as they
+ * claim them, which saves the second pass but breaks ties between equally short paths arbitrarily.
+ *
+ * @author Michael Bauer
+ */
+public class ParallelBreadthFirstEngine implements SearchEngine {
+    /** the number of frontier configurations a single task expands before it stops splitting */
+    private static final int SPLIT_THRESHOLD = 32;
+    /** the solution index of a layer with no solution in it */
+    private static final int NO_SOLUTION = Integer.MAX_VALUE;
+    /** the claim left on a child once its winner has kept it */
+    private static final int CLAIM_TAKEN = -1;
+
+    private final ForkJoinPool pool;
+    private final boolean deterministic;
+
+    /**
+     * Creates a deterministic engine that runs on the common fork-join pool.
+     */
+    public ParallelBreadthFirstEngine() {
+        this(ForkJoinPool.commonPool(), true);
+    }
+
+    /**
+     * Creates an engine that runs on the given pool.
+     *
+     * @param pool The pool to expand each layer on.
+     * @param deterministic true to return the same path as the sequential engine, false to break ties arbitrarily
+     */
+    public ParallelBreadthFirstEngine(ForkJoinPool pool, boolean deterministic) {
+        this.pool = pool;
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration, one depth layer at a time.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path if one was found.
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        // the first configuration is its own predecessor, which marks the start of the path
+        Map<Configuration, Configuration> predMap = new ConcurrentHashMap<>();
+        predMap.put(first, first);
+        long totalConfigs = 1;
+
+        List<Configuration> frontier = new ArrayList<>();
+        frontier.add(first);
+
+        for (int depth = 0; !frontier.isEmpty(); depth++) {
+            Layer layer = new Layer(frontier.toArray(new Configuration[0]), predMap);
+            recorder.phase("expand");
+            pool.invoke(new ExpandTask(layer, 0, layer.states.length));
+
+            int solution = layer.solution.get();
+            if (solution != NO_SOLUTION) {
+                recorder.visited(predMap.size());
+                recorder.phase("path");
+                List<Configuration> path = buildPath(layer.states[solution], predMap);
+                return new SolverResult(path, totalConfigs, predMap.size(), recorder.finish());
+            }
+
+            if (deterministic) {
+                recorder.phase("claim");
+                pool.invoke(new ClaimTask(layer, 0, layer.states.length));
+            }
+
+            recorder.phase("merge");
+            List<Configuration> next = new ArrayList<>();
+            long layerGenerated = 0;
+            for (int i = 0; i < layer.states.length; i++) {
+                layerGenerated += layer.generated[i];
+                next.addAll(layer.children.get(i));
+            }
+            totalConfigs += layerGenerated;
+            recorder.layer(depth, layer.states.length, layerGenerated);
+            recorder.duplicates(layerGenerated - next.size());
+            recorder.visited(predMap.size());
+            frontier = next;
+        }
+        return new SolverResult(null, totalConfigs, predMap.size(), recorder.finish());
+    }
+
+    /**
+     * Walks the predecessor map back from the solution to the first configuration.
+     *
+     * @param solution The solution configuration.
+     * @param predMap The predecessor of every visited configuration.
+     * @return The path from the first configuration to the solution.
+     */
+    private static List<Configuration> buildPath(Configuration solution, Map<Configuration, Configuration> predMap) {
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = solution;
+        Configuration pred = predMap.get(current);
+        while (pred != current) {
+            path.addFirst(current);
+            current = pred;
+            pred = predMap.get(current);
+        }
+        path.addFirst(current);
+        return path;
+    }
+
+    /**
+     * The work of one depth layer, shared by the tasks that split it: the frontier, the
+     * children of every frontier configuration, and in deterministic mode the lowest frontier
+     * index that generated each new child.
+     */
+    private static class Layer {
+        private final Configuration[] states;
+        private final List<Collection<Configuration>> children;
+        private final int[] generated;
+        private final Map<Configuration, Configuration> predMap;
+        private final Map<Configuration, Integer> claims = new ConcurrentHashMap<>();
+        /** the lowest frontier index of a solution */
+        private final AtomicInteger solution = new AtomicInteger(NO_SOLUTION);
+
+        Layer(Configuration[] states, Map<Configuration, Configuration> predMap) {
+            this.states = states;
+            this.children = new ArrayList<>(Collections.nCopies(states.length, null));
+            this.generated = new int[states.length];
+            this.predMap = predMap;
+        }
+    }
+
+    /**
+     * Checks and expands a slice of one frontier layer. Once any configuration of the layer is
+     * known to be a solution the rest are only checked, since the search ends with this layer.
+     * In deterministic mode every new child is claimed for the lowest frontier index that
+     * generated it, which is the one a sequential search would have reached it from; otherwise
+     * a child is kept by whichever task puts it in the visited map first.
+     */
+    private class ExpandTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Layer layer;
+        private final int from;
+        private final int to;
+
+        ExpandTask(Layer layer, int from, int to) {
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExpandTask(layer, from, mid), new ExpandTask(layer, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Configuration current = layer.states[i];
+                if (current.isSolution()) {
+                    layer.solution.accumulateAndGet(i, Math::min);
+                }
+                if (layer.solution.get() != NO_SOLUTION) {
+                    continue;
+                }
+                Collection<Configuration> neighbors = current.getNeighbors();
+                layer.generated[i] = neighbors.size();
+                if (deterministic) {
+                    // the visited map only holds earlier layers until the claims are settled
+                    for (Configuration neighbor : neighbors) {
+                        if (!layer.predMap.containsKey(neighbor)) {
+                            layer.claims.merge(neighbor, i, Math::min);
+                        }
+                    }
+                } else {
+                    List<Configuration> claimed = new ArrayList<>();
+                    for (Configuration neighbor : neighbors) {
+                        if (layer.predMap.putIfAbsent(neighbor, current) == null) {
+                            claimed.add(neighbor);
+                        }
+                    }
+                    neighbors = claimed;
+                }
+                layer.children.set(i, neighbors);
+            }
+        }
+    }
+
+    /**
+     * Keeps, for a slice of a deterministic layer, the children each frontier configuration
+     * won the claim on, in the order it generated them, and records their predecessors. A
+     * child generated twice by the same configuration is kept the first time only.
+     */
+    private static class ClaimTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Layer layer;
+        private final int from;
+        private final int to;
+
+        ClaimTask(Layer layer, int from, int to) {
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ClaimTask(layer, from, mid), new ClaimTask(layer, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                List<Configuration> kept = new ArrayList<>();
+                for (Configuration child : layer.children.get(i)) {
+                    // only this task touches claims won by i, so marking one taken cannot race
+                    if (layer.claims.replace(child, i, CLAIM_TAKEN)) {
+                        layer.predMap.put(child, layer.states[i]);
+                        kept.add(child);
+                    }
+                }
+                layer.children.set(i, kept);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package puzzles.common.solver;
+
+/**
+ * A cheap test for configurations that can never reach a solution. Engines that take a
+ * pruner drop such configurations as soon as they are generated, before they are stored
+ * or expanded. A pruner must never reject a configuration from which a solution can
+ * still be reached, or the engine may miss it.
+ *
+ * @author Michael Bauer
+ */
+@FunctionalInterface
+public interface Pruner {
+    /** a pruner that keeps every configuration */
+    Pruner NONE = config -> false;
+
+    /**
+     * Checks if a configuration can be dropped.
+     *
+     * @param config The newly generated configuration.
+     * @return true if no solution can be reached from it
+     */
+    boolean isDead(Configuration config);
+}
@@ -0,0 +1,20 @@
+package puzzles.common.solver;
+
+/**
+ * A search strategy that can solve any puzzle expressed as a {@link Configuration}.
+ * Every call to {@link #solve(Configuration)} keeps its own search state, so one engine
+ * (or many) can be used from several threads at the same time.
+ *
+ * @author Michael Bauer
+ */
+public interface SearchEngine {
+
+    /**
+     * Searches for a solution starting from the given configuration.
+     * All of the memory used during the search is released once the result is returned.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, which holds the solution path if one was found.
+     */
+    SolverResult solve(Configuration first);
+}
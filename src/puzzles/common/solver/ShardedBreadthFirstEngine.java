@@ -0,0 +1,274 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A shared-nothing parallel breadth-first search engine. The state space is partitioned
+ * by {@link Configuration#hashCode()} into shards, and each shard owns a plain visited map
+ * that only its own task ever touches. Children are batched and posted to the owning
+ * shard's lock-free inbox, so no locking is needed on the visited sets.
+ *
+ * The first configuration goes straight into the frontier of the shard that owns it. Every
+ * depth layer then runs in two phases: first each shard expands its frontier and posts the
+ * children to their owners, then each shard drains its inbox and keeps the configurations it
+ * has not seen yet as its frontier for the next layer.
+ *
+ * @author Michael Bauer
+ */
+public class ShardedBreadthFirstEngine implements SearchEngine {
+    /** the number of configurations sent to another shard in one inbox message */
+    private static final int BATCH_SIZE = 256;
+
+    private final int shards;
+    private final ExecutorService executor;
+
+    /**
+     * Creates an engine with one shard per available processor, which starts its own
+     * worker threads for every solve.
+     */
+    public ShardedBreadthFirstEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine which starts its own worker threads for every solve.
+     *
+     * @param shards The number of partitions of the state space.
+     */
+    public ShardedBreadthFirstEngine(int shards) {
+        this(shards, null);
+    }
+
+    /**
+     * Creates an engine that runs its shards on the given executor.
+     *
+     * @param shards The number of partitions of the state space.
+     * @param executor The executor to run the shard tasks on, or null to start threads for every solve.
+     */
+    public ShardedBreadthFirstEngine(int shards, ExecutorService executor) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        this.shards = shards;
+        this.executor = executor;
+    }
+
+    /**
+     * Solves the puzzle starting from the given initial configuration.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @return The result of the search, with a shortest solution path and the per-shard load.
+     */
+    @Override
+    public ShardedSolverResult solve(Configuration first) {
+        ExecutorService workers = executor != null ? executor : Executors.newFixedThreadPool(shards);
+        try {
+            return search(first, workers);
+        } finally {
+            if (executor == null) {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Runs the layered search on the given workers.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @param workers The executor to run the shard tasks on.
+     * @return The result of the search.
+     */
+    private ShardedSolverResult search(Configuration first, ExecutorService workers) {
+        SolverStats.Recorder recorder = new SolverStats.Recorder();
+        Shard[] partition = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            partition[i] = new Shard();
+        }
+        AtomicReference<Configuration> found = new AtomicReference<>();
+
+        // the first configuration is its own predecessor, which marks the start of the path
+        Shard owner = partition[shardOf(first)];
+        owner.predMap.put(first, first);
+        owner.frontier.add(first);
+        if (first.isSolution()) {
+            found.set(first);
+        }
+
+        List<Callable<Void>> expand = new ArrayList<>();
+        List<Callable<Void>> merge = new ArrayList<>();
+        for (Shard shard : partition) {
+            expand.add(() -> {
+                shard.expand(partition);
+                return null;
+            });
+            merge.add(() -> {
+                shard.merge(found);
+                return null;
+            });
+        }
+
+        boolean more = true;
+        long expandedBefore = 0;
+        long generatedBefore = 0;
+        long uniqueBefore = 1;
+        for (int depth = 0; found.get() == null && more; depth++) {
+            recorder.phase("expand");
+            runPhase(workers, expand);
+            recorder.phase("merge");
+            runPhase(workers, merge);
+            more = false;
+            long expandedNow = 0;
+            long generatedNow = 0;
+            long uniqueNow = 0;
+            for (Shard shard : partition) {
+                more |= !shard.frontier.isEmpty();
+                expandedNow += shard.expanded;
+                generatedNow += shard.generated;
+                uniqueNow += shard.predMap.size();
+            }
+            recorder.layer(depth, expandedNow - expandedBefore, generatedNow - generatedBefore);
+            recorder.duplicates((generatedNow - generatedBefore) - (uniqueNow - uniqueBefore));
+            recorder.visited(uniqueNow);
+            expandedBefore = expandedNow;
+            generatedBefore = generatedNow;
+            uniqueBefore = uniqueNow;
+        }
+
+        long totalConfigs = 1;
+        long uniqueConfigs = 0;
+        long[] sizes = new long[shards];
+        long[] expansions = new long[shards];
+        for (int i = 0; i < shards; i++) {
+            totalConfigs += partition[i].generated;
+            uniqueConfigs += partition[i].predMap.size();
+            sizes[i] = partition[i].predMap.size();
+            expansions[i] = partition[i].expanded;
+        }
+        recorder.phase("path");
+        List<Configuration> path = found.get() == null ? null : buildPath(found.get(), partition);
+        return new ShardedSolverResult(path, totalConfigs, uniqueConfigs, recorder.finish(), sizes, expansions);
+    }
+
+    /**
+     * Runs one phase on every shard and waits for all of them to finish.
+     *
+     * @param workers The executor to run the shard tasks on.
+     * @param tasks One task per shard.
+     */
+    private static void runPhase(ExecutorService workers, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("search interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Walks the predecessor maps of the shards back from the solution to the first configuration.
+     *
+     * @param solution The solution configuration.
+     * @param partition The shards holding the predecessors.
+     * @return The path from the first configuration to the solution.
+     */
+    private List<Configuration> buildPath(Configuration solution, Shard[] partition) {
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = solution;
+        Configuration pred = partition[shardOf(current)].predMap.get(current);
+        while (pred != current) {
+            path.addFirst(current);
+            current = pred;
+            pred = partition[shardOf(current)].predMap.get(current);
+        }
+        path.addFirst(current);
+        return path;
+    }
+
+    /**
+     * Finds the shard that owns a configuration.
+     *
+     * @param config The configuration.
+     * @return The index of the owning shard.
+     */
+    private int shardOf(Configuration config) {
+        int h = config.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % shards;
+    }
+
+    /**
+     * One partition of the state space. Only the task running this shard reads or writes its
+     * visited map and frontier; other shards only ever post to its inbox.
+     */
+    private class Shard {
+        private final Map<Configuration, Configuration> predMap = new HashMap<>();
+        /** batches of alternating child and parent configurations */
+        private final Queue<Configuration[]> inbox = new ConcurrentLinkedQueue<>();
+        private List<Configuration> frontier = new ArrayList<>();
+        private long expanded;
+        private long generated;
+
+        /**
+         * Expands this shard's frontier and posts every child to the inbox of its owner.
+         *
+         * @param partition All of the shards.
+         */
+        void expand(Shard[] partition) {
+            Configuration[][] outgoing = new Configuration[shards][];
+            int[] fill = new int[shards];
+            for (Configuration current : frontier) {
+                expanded++;
+                for (Configuration neighbor : current.getNeighbors()) {
+                    generated++;
+                    int target = shardOf(neighbor);
+                    if (outgoing[target] == null) {
+                        outgoing[target] = new Configuration[2 * BATCH_SIZE];
+                    }
+                    outgoing[target][fill[target]++] = neighbor;
+                    outgoing[target][fill[target]++] = current;
+                    if (fill[target] == outgoing[target].length) {
+                        partition[target].inbox.add(outgoing[target]);
+                        outgoing[target] = null;
+                        fill[target] = 0;
+                    }
+                }
+            }
+            for (int target = 0; target < shards; target++) {
+                if (fill[target] > 0) {
+                    partition[target].inbox.add(Arrays.copyOf(outgoing[target], fill[target]));
+                }
+            }
+            frontier = new ArrayList<>();
+        }
+
+        /**
+         * Drains the inbox, keeping every configuration this shard has not seen before
+         * as part of its next frontier.
+         *
+         * @param found Where to record a solution when one arrives.
+         */
+        void merge(AtomicReference<Configuration> found) {
+            Configuration[] batch;
+            while ((batch = inbox.poll()) != null) {
+                for (int i = 0; i < batch.length; i += 2) {
+                    Configuration child = batch[i];
+                    if (predMap.putIfAbsent(child, batch[i + 1]) == null) {
+                        frontier.add(child);
+                        if (child.isSolution()) {
+                            found.compareAndSet(null, child);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * The result of a {@link ShardedBreadthFirstEngine} search. Besides the usual counts it
+ * reports how the unique configurations and expansions were spread over the shards,
+ * which is what the partition count should be tuned against.
+ *
+ * @author Michael Bauer
+ */
+public class ShardedSolverResult extends SolverResult {
+    private final long[] shardSizes;
+    private final long[] shardExpansions;
+
+    /**
+     * Creates a new result.
+     *
+     * @param path The solution path, or null if there is none.
+     * @param totalConfigs The total number of configurations generated, including the first one.
+     * @param uniqueConfigs The number of unique configurations visited.
+     * @param stats The numbers the search recorded.
+     * @param shardSizes The number of unique configurations owned by each shard.
+     * @param shardExpansions The number of configurations each shard expanded.
+     */
+    public ShardedSolverResult(List<Configuration> path, long totalConfigs, long uniqueConfigs, SolverStats stats,
+                               long[] shardSizes, long[] shardExpansions) {
+        super(path, totalConfigs, uniqueConfigs, stats);
+        this.shardSizes = shardSizes.clone();
+        this.shardExpansions = shardExpansions.clone();
+    }
+
+    /**
+     * Gets the number of unique configurations owned by each shard.
+     *
+     * @return One count per shard.
+     */
+    public long[] getShardSizes() {
+        return shardSizes.clone();
+    }
+
+    /**
+     * Gets the number of configurations each shard expanded.
+     *
+     * @return One count per shard.
+     */
+    public long[] getShardExpansions() {
+        return shardExpansions.clone();
+    }
+
+    /**
+     * Gets how unevenly the configurations were spread, as the largest shard divided by the average shard.
+     * A perfectly balanced partition gives 1.0.
+     *
+     * @return The load imbalance factor.
+     */
+    public double getLoadImbalance() {
+        long max = 0;
+        long sum = 0;
+        for (long size : shardSizes) {
+            max = Math.max(max, size);
+            sum += size;
+        }
+        return sum == 0 ? 1.0 : (double) max * shardSizes.length / sum;
+    }
+
+    /**
+     * Returns a short summary of the result, including the shard balance.
+     *
+     * @return The summary string
+     */
+    @Override
+    public String toString() {
+        return super.toString() + ", shards: " + shardSizes.length +
+                String.format(", imbalance: %.2f", getLoadImbalance());
+    }
+}
@@ -1,6 +1,12 @@
 /**
  * The Solver class provides methods for solving puzzles using a breadth-first search algorithm.
  * It keeps track of the total and unique configurations visited during the search process.
+ * The search itself is done by a fresh {@link BreadthFirstEngine} on every call, or a
+ * {@link LayeredBreadthFirstEngine} for a {@link LayeredConfiguration}, which finds the same path
+ * while only holding on to two layers at a time, so several
+ * threads can solve at the same time; the counts reported are those of the calling thread's last solve.
+ * The full {@link SolverStats} of that solve are on {@link #getLastResult()}, and the totals over
+ * every solve are published through {@link SolverMetrics}.
  *
  * @Author Michael Bauer
  */
@@ -10,11 +16,7 @@ package puzzles.common.solver;
 import java.util.*;
 
 public class Solver{
-    private static Map<Configuration, Configuration> predMap = new HashMap<>();
-    private static LinkedList<Configuration> queue = new LinkedList<>();
-    private static List<Configuration> solution = new ArrayList<>();
-    private static Set<Configuration> visited = new HashSet<>();
-    private static int totalConfigs = 1;
+    private static final ThreadLocal<SolverResult> lastResult = new ThreadLocal<>();
 
 
     /**
@@ -26,40 +28,32 @@ public class Solver{
      * @return The list of configurations representing the solution path, or null if no solution is found.
      */
     public static List<Configuration> solve(Configuration first){
+        return solve(first, Pruner.NONE);
+    }
 
-        queue.clear();
-        visited.clear();
-        solution.clear();
-        predMap.clear();
-
-        queue.offer(first);
-        visited.add(first);
-
-        while(!queue.isEmpty()){
-            Configuration current = queue.poll();
-
-            if(current.isSolution()){
-                while(current != null){
-                    solution.addFirst(current);
-                    current = predMap.get(current);
-                }
-                return solution;
-            }
-
-            Collection<Configuration> neighbors = current.getNeighbors();
-            totalConfigs += neighbors.size();
-
-            for (Configuration neighbor : neighbors) {
-                if (!visited.contains(neighbor)) {
-                    queue.offer(neighbor);
-                    visited.add(neighbor);
-                    predMap.put(neighbor, current);
-
-                }
-            }
+    /**
+     * Solves the puzzle starting from the given initial configuration, dropping the
+     * configurations the pruner rejects as dead ends.
+     *
+     * @param first The initial configuration of the puzzle.
+     * @param pruner The test for dead ends.
+     * @return The list of configurations representing the solution path, or null if no solution is found.
+     */
+    public static List<Configuration> solve(Configuration first, Pruner pruner){
+        SearchEngine engine = first instanceof LayeredConfiguration ?
+                new LayeredBreadthFirstEngine(pruner) : new BreadthFirstEngine(pruner);
+        SolverResult result = engine.solve(first);
+        lastResult.set(result);
+        return result.isSolved() ? new ArrayList<>(result.getPath()) : null;
+    }
 
-        }
-        return null;
+    /**
+     * Gets the result of the last search done by the calling thread.
+     *
+     * @return The last result, or null if this thread has not solved anything yet.
+     */
+    public static SolverResult getLastResult(){
+        return lastResult.get();
     }
 
     /**
@@ -67,8 +61,9 @@ public class Solver{
      *
      * @return The total number of configurations explored.
      */
-    public static int getTotalConfigs(){
-        return totalConfigs;
+    public static long getTotalConfigs(){
+        SolverResult result = lastResult.get();
+        return result == null ? 0 : result.getTotalConfigs();
     }
 
     /**
@@ -76,8 +71,9 @@ public class Solver{
      *
      * @return The number of unique configurations visited.
      */
-    public static int getUniqueConfigs(){
-        return visited.size();
+    public static long getUniqueConfigs(){
+        SolverResult result = lastResult.get();
+        return result == null ? 0 : result.getUniqueConfigs();
     }
 
 
@@ -0,0 +1,163 @@
+package puzzles.common.solver;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide totals of every search, registered on the platform MBean server as
+ * {@value #OBJECT_NAME}. Each search reports its {@link SolverStats} once, when it finishes,
+ * so the counters cost nothing while a search runs. The counters are {@link LongAdder}s,
+ * and searches running on different threads can report at the same time.
+ *
+ * @author Michael Bauer
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    /** the name the metrics are registered under */
+    public static final String OBJECT_NAME = "puzzles.common.solver:type=SolverMetrics";
+
+    private static final SolverMetrics INSTANCE = register(new SolverMetrics());
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder expanded = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder elapsedNanos = new LongAdder();
+    private final LongAccumulator peakVisited = new LongAccumulator(Math::max, 0);
+    private volatile SolverStats last;
+
+    private SolverMetrics() {
+    }
+
+    /**
+     * Gets the metrics of this process.
+     *
+     * @return The single instance.
+     */
+    public static SolverMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics on the platform MBean server. A failure only means they cannot be
+     * watched over JMX, so it does not stop the solver from working.
+     *
+     * @param metrics The metrics to register.
+     * @return The same metrics.
+     */
+    private static SolverMetrics register(SolverMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.err.println("Solver metrics not registered: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Adds a finished search to the totals.
+     *
+     * @param stats The snapshot of the search.
+     */
+    void publish(SolverStats stats) {
+        solves.increment();
+        expanded.add(stats.getExpanded());
+        generated.add(stats.getGenerated());
+        duplicates.add(stats.getDuplicates());
+        pruned.add(stats.getPruned());
+        elapsedNanos.add(stats.getElapsedNanos());
+        peakVisited.accumulate(stats.getPeakVisited());
+        last = stats;
+    }
+
+    /**
+     * Gets the snapshot of the most recent search.
+     *
+     * @return The snapshot, or null if nothing has been solved since the last reset.
+     */
+    public SolverStats getLastStats() {
+        return last;
+    }
+
+    @Override
+    public long getSolveCount() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getExpandedNodes() {
+        return expanded.sum();
+    }
+
+    @Override
+    public long getGeneratedNodes() {
+        return generated.sum();
+    }
+
+    @Override
+    public long getDuplicateHits() {
+        return duplicates.sum();
+    }
+
+    @Override
+    public long getPrunedNodes() {
+        return pruned.sum();
+    }
+
+    @Override
+    public long getPeakVisited() {
+        return peakVisited.get();
+    }
+
+    @Override
+    public long getTotalSolveMillis() {
+        return elapsedNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public double getStatesPerSecond() {
+        long nanos = elapsedNanos.sum();
+        return nanos == 0 ? 0 : generated.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public long getLastSolveMillis() {
+        SolverStats stats = last;
+        return stats == null ? 0 : stats.getElapsedNanos() / 1_000_000;
+    }
+
+    @Override
+    public long[] getLastFrontierSizes() {
+        SolverStats stats = last;
+        return stats == null ? new long[0] : stats.getFrontierSizes();
+    }
+
+    @Override
+    public double[] getLastBranchingFactors() {
+        SolverStats stats = last;
+        return stats == null ? new double[0] : stats.getBranchingFactors();
+    }
+
+    @Override
+    public Map<String, Long> getLastPhaseNanos() {
+        SolverStats stats = last;
+        return stats == null ? Map.of() : stats.getPhaseNanos();
+    }
+
+    @Override
+    public void reset() {
+        solves.reset();
+        expanded.reset();
+        generated.reset();
+        duplicates.reset();
+        pruned.reset();
+        elapsedNanos.reset();
+        peakVisited.reset();
+        last = null;
+    }
+}
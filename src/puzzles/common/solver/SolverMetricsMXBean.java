@@ -0,0 +1,78 @@
+package puzzles.common.solver;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link SolverMetrics}, as seen from JConsole or any other JMX client.
+ * The totals cover every search since start-up or the last {@link #reset()}, and the
+ * per-depth numbers are those of the most recent search.
+ *
+ * @author Michael Bauer
+ */
+public interface SolverMetricsMXBean {
+
+    /**
+     * @return The number of searches finished.
+     */
+    long getSolveCount();
+
+    /**
+     * @return The number of configurations expanded.
+     */
+    long getExpandedNodes();
+
+    /**
+     * @return The number of neighbors generated.
+     */
+    long getGeneratedNodes();
+
+    /**
+     * @return The number of generated neighbors that had already been seen.
+     */
+    long getDuplicateHits();
+
+    /**
+     * @return The number of generated neighbors dropped as dead ends.
+     */
+    long getPrunedNodes();
+
+    /**
+     * @return The largest visited set of any search.
+     */
+    long getPeakVisited();
+
+    /**
+     * @return The total wall time of all searches in milliseconds.
+     */
+    long getTotalSolveMillis();
+
+    /**
+     * @return Generated configurations per second over all searches.
+     */
+    double getStatesPerSecond();
+
+    /**
+     * @return The wall time of the most recent search in milliseconds.
+     */
+    long getLastSolveMillis();
+
+    /**
+     * @return The frontier size at every depth of the most recent search.
+     */
+    long[] getLastFrontierSizes();
+
+    /**
+     * @return The branching factor at every depth of the most recent search.
+     */
+    double[] getLastBranchingFactors();
+
+    /**
+     * @return The wall time of every phase of the most recent search, in nanoseconds.
+     */
+    Map<String, Long> getLastPhaseNanos();
+
+    /**
+     * Clears every counter.
+     */
+    void reset();
+}
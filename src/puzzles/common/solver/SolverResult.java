@@ -0,0 +1,108 @@
+package puzzles.common.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a single search. It holds the solution path (if any), the number of
+ * total and unique configurations that were seen, how long the search took, and the
+ * {@link SolverStats} the search recorded.
+ * Results are immutable, so they can be handed between threads freely.
+ *
+ * @author Michael Bauer
+ */
+public class SolverResult {
+    private final List<Configuration> path;
+    private final long totalConfigs;
+    private final long uniqueConfigs;
+    private final SolverStats stats;
+
+    /**
+     * Creates a new result.
+     *
+     * @param path The solution path from the first configuration to the solution, or null if there is none.
+     * @param totalConfigs The total number of configurations generated, including the first one.
+     * @param uniqueConfigs The number of unique configurations visited.
+     * @param stats The numbers the search recorded.
+     */
+    public SolverResult(List<Configuration> path, long totalConfigs, long uniqueConfigs, SolverStats stats) {
+        this.path = path == null ? null : Collections.unmodifiableList(path);
+        this.totalConfigs = totalConfigs;
+        this.uniqueConfigs = uniqueConfigs;
+        this.stats = stats;
+    }
+
+    /**
+     * Checks if the search found a solution.
+     *
+     * @return true if a solution path exists, false otherwise
+     */
+    public boolean isSolved() {
+        return path != null;
+    }
+
+    /**
+     * Gets the solution path, starting with the first configuration and ending with the solution.
+     *
+     * @return The solution path, or null if no solution was found.
+     */
+    public List<Configuration> getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the total number of configurations generated during the search, including the first one.
+     *
+     * @return The total number of configurations.
+     */
+    public long getTotalConfigs() {
+        return totalConfigs;
+    }
+
+    /**
+     * Gets the number of unique configurations visited during the search.
+     *
+     * @return The number of unique configurations.
+     */
+    public long getUniqueConfigs() {
+        return uniqueConfigs;
+    }
+
+    /**
+     * Gets how long the search took.
+     *
+     * @return The wall time of the search in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return stats.getElapsedNanos();
+    }
+
+    /**
+     * Gets how long the search took.
+     *
+     * @return The wall time of the search in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return stats.getElapsedNanos() / 1_000_000;
+    }
+
+    /**
+     * Gets the detailed numbers the search recorded.
+     *
+     * @return The stats snapshot.
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns a short summary of the result.
+     *
+     * @return The summary string
+     */
+    @Override
+    public String toString() {
+        return (isSolved() ? "Solved in " + (path.size() - 1) + " steps" : "No solution") +
+                ", total: " + totalConfigs + ", unique: " + uniqueConfigs + ", time: " + getElapsedMillis() + "ms";
+    }
+}
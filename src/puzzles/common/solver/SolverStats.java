@@ -0,0 +1,281 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A snapshot of what one search did: how many configurations were expanded and generated,
+ * how many of those were duplicates or dropped by a {@link Pruner}, the frontier size and branching factor at every depth,
+ * the largest visited set, and how long each phase took. Snapshots are immutable and are
+ * built by a {@link Recorder} while the search runs.
+ *
+ * @author Michael Bauer
+ */
+public final class SolverStats {
+    private final long expanded;
+    private final long generated;
+    private final long duplicates;
+    private final long pruned;
+    private final long peakVisited;
+    private final long[] frontierSizes;
+    private final long[] generatedPerDepth;
+    private final Map<String, Long> phaseNanos;
+    private final long elapsedNanos;
+
+    private SolverStats(Recorder recorder, long elapsedNanos) {
+        this.expanded = recorder.expanded;
+        this.generated = recorder.generated;
+        this.duplicates = recorder.duplicates;
+        this.pruned = recorder.pruned;
+        this.peakVisited = recorder.peakVisited;
+        this.frontierSizes = Arrays.copyOf(recorder.frontierSizes, recorder.depths);
+        this.generatedPerDepth = Arrays.copyOf(recorder.generatedPerDepth, recorder.depths);
+        this.phaseNanos = Collections.unmodifiableMap(new LinkedHashMap<>(recorder.phaseNanos));
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of configurations whose neighbors were generated.
+     *
+     * @return The number of expanded configurations.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Gets the number of neighbors generated, not counting the first configuration.
+     *
+     * @return The number of generated configurations.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Gets the number of generated configurations that had already been seen.
+     *
+     * @return The number of duplicate hits.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the number of generated configurations a {@link Pruner} dropped as dead ends.
+     *
+     * @return The number of pruned configurations.
+     */
+    public long getPruned() {
+        return pruned;
+    }
+
+    /**
+     * Gets the largest number of configurations the search held on to at once.
+     *
+     * @return The peak size of the visited set.
+     */
+    public long getPeakVisited() {
+        return peakVisited;
+    }
+
+    /**
+     * Gets the number of configurations expanded at every depth, starting with depth 0.
+     *
+     * @return A copy of the frontier sizes.
+     */
+    public long[] getFrontierSizes() {
+        return frontierSizes.clone();
+    }
+
+    /**
+     * Gets the average number of neighbors per expanded configuration at every depth.
+     *
+     * @return The branching factor of each depth, 0 where nothing was expanded.
+     */
+    public double[] getBranchingFactors() {
+        double[] factors = new double[frontierSizes.length];
+        for (int depth = 0; depth < factors.length; depth++) {
+            if (frontierSizes[depth] > 0) {
+                factors[depth] = (double) generatedPerDepth[depth] / frontierSizes[depth];
+            }
+        }
+        return factors;
+    }
+
+    /**
+     * Gets the wall time of every phase of the search, in the order the phases ran.
+     *
+     * @return An unmodifiable map from phase name to nanoseconds.
+     */
+    public Map<String, Long> getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    /**
+     * Gets how long the search took.
+     *
+     * @return The wall time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets how fast configurations were generated.
+     *
+     * @return Generated configurations per second of wall time.
+     */
+    public double getStatesPerSecond() {
+        return elapsedNanos == 0 ? 0 : generated * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns a short summary of the snapshot.
+     *
+     * @return The summary string
+     */
+    @Override
+    public String toString() {
+        return "expanded: " + expanded + ", generated: " + generated + ", duplicates: " + duplicates +
+                ", pruned: " + pruned + ", peak visited: " + peakVisited + ", depths: " + frontierSizes.length +
+                ", states/s: " + Math.round(getStatesPerSecond()) + ", phases: " + phaseNanos;
+    }
+
+    /**
+     * Collects the numbers of one search as it runs. A recorder belongs to a single solve and
+     * is not thread-safe; engines that work in parallel report totals from their coordinating
+     * thread. The recorder starts timing when it is made, and {@link #finish()} turns it into a
+     * snapshot and publishes that to {@link SolverMetrics}.
+     */
+    public static final class Recorder {
+        private final long start = System.nanoTime();
+        private long expanded;
+        private long generated;
+        private long duplicates;
+        private long pruned;
+        private long peakVisited;
+        private long[] frontierSizes = new long[16];
+        private long[] generatedPerDepth = new long[16];
+        private int depths;
+        private int depth;
+        private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        private String phase;
+        private long phaseStart;
+
+        /**
+         * Starts a new phase, ending the one before it.
+         *
+         * @param name The name of the phase.
+         */
+        public void phase(String name) {
+            long now = System.nanoTime();
+            endPhase(now);
+            phase = name;
+            phaseStart = now;
+        }
+
+        /**
+         * Records that a configuration at the given depth is being expanded. Neighbors
+         * recorded after this count towards that depth.
+         *
+         * @param depth The number of moves from the first configuration.
+         */
+        public void expanded(int depth) {
+            layer(depth, 1, 0);
+        }
+
+        /**
+         * Records one generated neighbor.
+         */
+        public void generated() {
+            generated++;
+            generatedPerDepth[depth]++;
+        }
+
+        /**
+         * Records several generated neighbors.
+         *
+         * @param count The number of neighbors.
+         */
+        public void generated(long count) {
+            generated += count;
+            generatedPerDepth[depth] += count;
+        }
+
+        /**
+         * Records a whole depth layer at once, for engines that expand layer by layer.
+         *
+         * @param depth The number of moves from the first configuration.
+         * @param expandedCount The number of configurations expanded at that depth.
+         * @param generatedCount The number of neighbors they generated.
+         */
+        public void layer(int depth, long expandedCount, long generatedCount) {
+            if (depth >= frontierSizes.length) {
+                int length = Math.max(depth + 1, frontierSizes.length * 2);
+                frontierSizes = Arrays.copyOf(frontierSizes, length);
+                generatedPerDepth = Arrays.copyOf(generatedPerDepth, length);
+            }
+            this.depth = depth;
+            depths = Math.max(depths, depth + 1);
+            expanded += expandedCount;
+            frontierSizes[depth] += expandedCount;
+            generated += generatedCount;
+            generatedPerDepth[depth] += generatedCount;
+        }
+
+        /**
+         * Records one generated neighbor that had already been seen.
+         */
+        public void duplicate() {
+            duplicates++;
+        }
+
+        /**
+         * Records several generated neighbors that had already been seen.
+         *
+         * @param count The number of duplicates.
+         */
+        public void duplicates(long count) {
+            duplicates += count;
+        }
+
+        /**
+         * Records one generated neighbor that was dropped as a dead end.
+         */
+        public void pruned() {
+            pruned++;
+        }
+
+        /**
+         * Records the current size of the visited set.
+         *
+         * @param size The number of configurations held.
+         */
+        public void visited(long size) {
+            peakVisited = Math.max(peakVisited, size);
+        }
+
+        /**
+         * Ends the search, makes the snapshot and publishes it to {@link SolverMetrics}.
+         *
+         * @return The snapshot.
+         */
+        public SolverStats finish() {
+            long now = System.nanoTime();
+            endPhase(now);
+            phase = null;
+            SolverStats stats = new SolverStats(this, now - start);
+            SolverMetrics.getInstance().publish(stats);
+            return stats;
+        }
+
+        private void endPhase(long now) {
+            if (phase != null) {
+                phaseNanos.merge(phase, now - phaseStart, Long::sum);
+            }
+        }
+    }
+}
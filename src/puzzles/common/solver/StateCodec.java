@@ -0,0 +1,36 @@
+package puzzles.common.solver;
+
+/**
+ * Turns the configurations of one puzzle into fixed-size byte records and back, so they can
+ * be kept outside the heap. Two configurations must encode to the same bytes exactly when they
+ * are equal.
+ *
+ * @author Michael Bauer
+ */
+public interface StateCodec {
+
+    /**
+     * Gets the number of bytes every encoded configuration takes.
+     *
+     * @return The record size in bytes.
+     */
+    int recordSize();
+
+    /**
+     * Writes a configuration as {@link #recordSize()} bytes.
+     *
+     * @param config The configuration to encode.
+     * @param dst The array to write to.
+     * @param offset Where in the array the record starts.
+     */
+    void encode(Configuration config, byte[] dst, int offset);
+
+    /**
+     * Reads a configuration back from {@link #recordSize()} bytes.
+     *
+     * @param src The array to read from.
+     * @param offset Where in the array the record starts.
+     * @return The decoded configuration.
+     */
+    Configuration decode(byte[] src, int offset);
+}
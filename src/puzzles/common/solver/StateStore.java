@@ -0,0 +1,176 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact store of the configurations discovered during a search. Every configuration gets
+ * a dense int id in the order it was added, and its parent id and hash are kept in primitive arrays that grow in fixed-size chunks. Lookups go through an open-addressing
+ * table of ids rather than a {@code HashMap}, so there is no entry object per configuration.
+ *
+ * Since ids are handed out in discovery order, a breadth-first search can use the ids themselves
+ * as its queue.
+ *
+ * @author Michael Bauer
+ */
+public class StateStore {
+    /** the parent id of a configuration that starts a path */
+    public static final int NO_PARENT = -1;
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Configuration[][] states = new Configuration[1][];
+    private int[][] parents = new int[1][];
+    private int[][] hashes = new int[1][];
+    /** open-addressing table of id + 1, where 0 marks an empty slot */
+    private int[] table = new int[64];
+    private int size = 0;
+
+    /**
+     * Adds a configuration unless an equal one is already stored.
+     *
+     * @param config The configuration to add.
+     * @param parent The id of the configuration it was generated from, or {@link #NO_PARENT}.
+     * @return The new id, or -1 if an equal configuration was already stored.
+     */
+    public int add(Configuration config, int parent) {
+        int hash = spread(config.hashCode());
+        int slot = find(config, hash);
+        if (table[slot] != 0) {
+            return -1;
+        }
+        int id = size++;
+        int chunk = id >>> CHUNK_BITS;
+        if (chunk == states.length) {
+            int chunks = chunk * 2;
+            states = Arrays.copyOf(states, chunks);
+            parents = Arrays.copyOf(parents, chunks);
+            hashes = Arrays.copyOf(hashes, chunks);
+        }
+        if (states[chunk] == null) {
+            states[chunk] = new Configuration[CHUNK_SIZE];
+            parents[chunk] = new int[CHUNK_SIZE];
+            hashes[chunk] = new int[CHUNK_SIZE];
+        }
+        int offset = id & CHUNK_MASK;
+        states[chunk][offset] = config;
+        parents[chunk][offset] = parent;
+        hashes[chunk][offset] = hash;
+        table[slot] = id + 1;
+
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Finds the id of a stored configuration.
+     *
+     * @param config The configuration to look for.
+     * @return Its id, or -1 if it is not stored.
+     */
+    public int indexOf(Configuration config) {
+        return table[find(config, spread(config.hashCode()))] - 1;
+    }
+
+    /**
+     * Gets a stored configuration.
+     *
+     * @param id The id of the configuration.
+     * @return The configuration.
+     */
+    public Configuration get(int id) {
+        return states[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the id of the configuration a stored configuration was generated from.
+     *
+     * @param id The id of the configuration.
+     * @return The parent id, or {@link #NO_PARENT}.
+     */
+    public int getParent(int id) {
+        return parents[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+    /**
+     * Gets the number of stored configurations.
+     *
+     * @return The number of configurations.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Follows the parent ids back from a stored configuration.
+     *
+     * @param id The id of the last configuration on the path.
+     * @return The path from the configuration with no parent to the given one.
+     */
+    public List<Configuration> pathTo(int id) {
+        List<Configuration> path = new ArrayList<>();
+        while (id != NO_PARENT) {
+            path.addFirst(get(id));
+            id = getParent(id);
+        }
+        return path;
+    }
+
+    /**
+     * Finds the table slot that holds a configuration, or the empty slot where it would go.
+     *
+     * @param config The configuration to look for.
+     * @param hash Its spread hash.
+     * @return The slot index.
+     */
+    private int find(Configuration config, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int id = entry - 1;
+            int chunk = id >>> CHUNK_BITS;
+            int offset = id & CHUNK_MASK;
+            if (hashes[chunk][offset] == hash && states[chunk][offset].equals(config)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the lookup table, reusing the stored hashes.
+     */
+    private void rehash() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        int mask = table.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int id = entry - 1;
+                int slot = hashes[id >>> CHUNK_BITS][id & CHUNK_MASK] & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry;
+            }
+        }
+    }
+
+    /**
+     * Mixes the high bits of a hash code into the low bits used to pick a slot.
+     *
+     * @param h The hash code.
+     * @return The spread hash.
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,7 +1,7 @@
 /**
- * This class represents a configuration of the dice puzzle. It implements the Configuration interface
- * and provides methods to check if it's a solution, get its neighbors, and override equals, hashCode,
- * and toString methods.
+ * This class represents a configuration of the dice puzzle. It implements the GoalConfiguration interface
+ * and provides methods to check if it's a solution, get its neighbors and predecessors, and override equals,
+ * hashCode, and toString methods.
  *
  * @author Michael Bauer
  */
@@ -10,22 +10,25 @@
 package puzzles.dice;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.GoalConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
-public class DiceConfig implements Configuration {
+public class DiceConfig implements GoalConfiguration {
 
-    private String currentString;
-    private static String endString;
-    private static List<Die> dice;
+    private final String currentString;
+    private final String endString;
+    private final List<Die> dice;
 
 
     /**
      * Constructor to initialize a DiceConfig object with the current configuration,
-     * end configuration, and list of dice.
+     * end configuration, and list of dice. The list is copied once into an unmodifiable
+     * list, which every neighbor then shares.
      *
      * @param current The current configuration of the dice
      * @param end The end configuration to reach
@@ -33,11 +36,21 @@ public class DiceConfig implements Configuration {
      */
     public DiceConfig(String current, String end, List<Die> diceList){
         this.currentString = current;
-        endString = end;
-        dice = diceList;
+        this.endString = end;
+        // copyOf returns an unmodifiable list as it is, so neighbors do not copy it again
+        this.dice = List.copyOf(diceList);
     }
 
 
+    /**
+     * Gets the faces currently showing, one character per die.
+     *
+     * @return The current configuration of the dice
+     */
+    public String getCurrentString() {
+        return currentString;
+    }
+
     /**
      * Checks if the current configuration is the solution.
      *
@@ -57,18 +70,61 @@ public class DiceConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         Collection<Configuration> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Passes every configuration reachable by turning one die to the consumer.
+     *
+     * @param consumer The consumer that receives each neighbor
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Configuration> consumer) {
+        char[] faces = currentString.toCharArray();
 
         for (int i = 0; i < dice.size(); i++) {
-            Set<Character> neighborFaces = dice.get(i).getNeighborFaces(currentString.charAt(i));
+            char current = faces[i];
+            Set<Character> neighborFaces = dice.get(i).getNeighborFaces(current);
 
             for(char neighbor : neighborFaces){
+                faces[i] = neighbor;
+                consumer.accept(new DiceConfig(new String(faces), endString, dice));
+            }
+            faces[i] = current;
+        }
+    }
+
+    /**
+     * Gets the goal configuration, which is every die showing its end face.
+     *
+     * @return A collection holding the single goal configuration
+     */
+    @Override
+    public Collection<Configuration> getGoals() {
+        return List.of(new DiceConfig(endString, endString, dice));
+    }
+
+    /**
+     * Gets the configurations that can reach the current configuration by turning one die.
+     *
+     * @return A collection of predecessor configurations
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        Collection<Configuration> predecessors = new ArrayList<>();
+
+        for (int i = 0; i < dice.size(); i++) {
+            Set<Character> predecessorFaces = dice.get(i).getPredecessorFaces(currentString.charAt(i));
+
+            for(char predecessor : predecessorFaces){
                 StringBuilder newString = new StringBuilder(currentString);
-                newString.setCharAt(i, neighbor);
+                newString.setCharAt(i, predecessor);
 
-                neighbors.add(new DiceConfig(newString.toString(), endString, dice));
+                predecessors.add(new DiceConfig(newString.toString(), endString, dice));
             }
         }
-        return neighbors;
+        return predecessors;
     }
 
     /**
@@ -0,0 +1,78 @@
+/**
+ * An admissible heuristic for the dice puzzle. Every move turns a single die to a neighboring
+ * face, so a configuration needs at least as many moves as the die that is furthest from its
+ * end face. The face distances of every die are worked out once, when the heuristic is created.
+ *
+ * @author Michael Bauer
+ */
+
+package puzzles.dice;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Heuristic;
+
+import java.util.*;
+
+public class DiceHeuristic implements Heuristic {
+
+    private final List<Map<Character, Integer>> distances;
+
+    /**
+     * Constructor to build the face distance tables for each die.
+     *
+     * @param dice The list of dice objects
+     * @param end The end configuration to reach
+     */
+    public DiceHeuristic(List<Die> dice, String end){
+        this.distances = new ArrayList<>();
+        for (int i = 0; i < dice.size(); i++) {
+            distances.add(distancesTo(dice.get(i), end.charAt(i)));
+        }
+    }
+
+    /**
+     * Finds the number of turns from every face of a die to the target face, by searching
+     * backward from the target.
+     *
+     * @param die The die
+     * @param target The face to reach
+     * @return The number of turns from each face that can reach the target
+     */
+    private static Map<Character, Integer> distancesTo(Die die, char target){
+        Map<Character, Integer> distance = new HashMap<>();
+        Queue<Character> queue = new ArrayDeque<>();
+        distance.put(target, 0);
+        queue.offer(target);
+
+        while(!queue.isEmpty()){
+            char face = queue.poll();
+            for (char predecessor : die.getPredecessorFaces(face)) {
+                if (!distance.containsKey(predecessor)) {
+                    distance.put(predecessor, distance.get(face) + 1);
+                    queue.offer(predecessor);
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Estimates the number of moves left as the largest face distance of any die.
+     *
+     * @param config The DiceConfig to estimate
+     * @return A lower bound on the moves left, or UNREACHABLE if some die can never reach its end face
+     */
+    @Override
+    public int estimate(Configuration config) {
+        String current = ((DiceConfig) config).getCurrentString();
+        int moves = 0;
+        for (int i = 0; i < distances.size(); i++) {
+            Integer distance = distances.get(i).get(current.charAt(i));
+            if (distance == null) {
+                return UNREACHABLE;
+            }
+            moves = Math.max(moves, distance);
+        }
+        return moves;
+    }
+}
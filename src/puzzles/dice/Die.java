@@ -18,6 +18,7 @@ public class Die {
     private String filename;
     private int numFaces;
     private Map<Character, Set<Character>> predMap;
+    private Map<Character, Set<Character>> reverseMap;
     private int dieNum;
 
     /**
@@ -29,6 +30,7 @@ public class Die {
         this.filename = filename;
         this.numFaces = 0;
         this.predMap = new LinkedHashMap<>();
+        this.reverseMap = new LinkedHashMap<>();
     }
 
 
@@ -51,6 +53,16 @@ public class Die {
         return predMap.get(ch);
     }
 
+    /**
+     * Retrieves the faces that have the specified face as one of their neighbors.
+     *
+     * @param ch The face for which to retrieve the predecessors.
+     * @return A set containing the faces that can turn to the given face.
+     */
+    public Set<Character> getPredecessorFaces(char ch){
+        return reverseMap.getOrDefault(ch, Set.of());
+    }
+
     /**
      * Loads the configuration of this die from the specified file.
      *
@@ -76,6 +88,13 @@ public class Die {
 
         }
 
+        reverseMap.clear();
+        for (Map.Entry<Character, Set<Character>> entry : predMap.entrySet()) {
+            for (char neighbor : entry.getValue()) {
+                reverseMap.computeIfAbsent(neighbor, face -> new LinkedHashSet<>()).add(entry.getKey());
+            }
+        }
+
     }
 
     /**
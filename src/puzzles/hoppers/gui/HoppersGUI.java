@@ -10,9 +10,10 @@ import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
 import puzzles.hoppers.model.HoppersConfig;
 import puzzles.hoppers.model.HoppersModel;
+import puzzles.hoppers.solver.HoppersDepthFirstSolver;
+import puzzles.hoppers.solver.HoppersPruner;
 import javafx.scene.control.Label;
 
 import javafx.application.Application;
@@ -253,7 +254,14 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         });
 
         hint.setOnAction(event -> {
-            List<Configuration> solution = Solver.solve(model.getCurrentConfig());
+            // every solution takes one jump per green frog, so the first one depth first is as good as any
+            HoppersConfig current = model.getCurrentConfig();
+            HoppersPruner pruner = new HoppersPruner(current);
+            if (pruner.isUnsolvable(current)) {
+                update(model, "Unsolvable");
+                return;
+            }
+            List<Configuration> solution = new HoppersDepthFirstSolver(pruner).solve(current).getPath();
             if(solution != null && solution.size() > 1){
 
                 update(model,"Next step!");
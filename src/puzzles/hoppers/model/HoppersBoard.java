@@ -0,0 +1,370 @@
+package puzzles.hoppers.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The parts of a Hoppers puzzle that never change while it is played: the size of the
+ * grid, which cells are lily pads, the Zobrist keys of the pads and every jump between
+ * them. Pads are numbered in row-major order, and a configuration keeps one bit per pad
+ * for its green frogs and one for its red frog. Every HoppersConfig of a puzzle shares one
+ * board, so several puzzles can be loaded and solved side by side.
+ *
+ * @author the samosas
+ */
+public final class HoppersBoard {
+    private final int nRows;
+    private final int nCols;
+    /** a random key for a green and a red frog on every cell, at cell * 2 and cell * 2 + 1 */
+    private final long[] zobrist;
+    /** the same keys by pad, at pad * 2 and pad * 2 + 1 */
+    private final long[] padKeys;
+    /** the pad number of every cell, or -1 for water */
+    private final int[] padOf;
+    /** the cell of every pad */
+    private final int[] padCell;
+    /**
+     * the pads of every jump from a pad over a pad onto a pad, listed by start pad and then
+     * in the order of the move tables, which is the order neighbors are made in
+     */
+    private final int[] jumpFrom;
+    private final int[] jumpOver;
+    private final int[] jumpTo;
+    /** for every pad, the jumps that start on it, pass over it or land on it */
+    private final int[][] jumpsAt;
+    /** the row and column of every cell, so hot loops need not divide */
+    private final int[] cellRow;
+    private final int[] cellCol;
+    /**
+     * the rotations and reflections that map the board onto itself, as the pad each pad goes
+     * to, the identity left out; null unless configurations on this board are reduced by symmetry
+     */
+    private final int[][] symmetries;
+    /** the same board with configurations reduced by symmetry, made on first use */
+    private HoppersBoard symmetricBoard;
+
+    /**
+     * Constructs a board.
+     *
+     * @param nRows the number of rows
+     * @param nCols the number of columns
+     * @param water true for every cell, in row-major order, that is water rather than a lily pad
+     */
+    HoppersBoard(int nRows, int nCols, boolean[] water) {
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.zobrist = new long[nRows * nCols * 2];
+        // a fixed seed gives the same keys, and so the same hash codes, on every run
+        SplittableRandom random = new SplittableRandom(nRows * 31L + nCols);
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+        int nCells = nRows * nCols;
+        this.cellRow = new int[nCells];
+        this.cellCol = new int[nCells];
+        this.padOf = new int[nCells];
+        int[] cells = new int[nCells];
+        int nPads = 0;
+        for (int cell = 0; cell < nCells; cell++) {
+            cellRow[cell] = cell / nCols;
+            cellCol[cell] = cell % nCols;
+            padOf[cell] = water[cell] ? -1 : nPads;
+            if (!water[cell]) {
+                cells[nPads++] = cell;
+            }
+        }
+        this.padCell = Arrays.copyOf(cells, nPads);
+        this.padKeys = new long[nPads * 2];
+        for (int pad = 0; pad < nPads; pad++) {
+            padKeys[pad * 2] = zobrist[padCell[pad] * 2];
+            padKeys[pad * 2 + 1] = zobrist[padCell[pad] * 2 + 1];
+        }
+
+        int[] from = new int[nPads * HoppersConfig.MOVES_EVEN.length];
+        int[] over = new int[from.length];
+        int[] to = new int[from.length];
+        int[] touching = new int[nPads];
+        int nJumps = 0;
+        for (int pad = 0; pad < nPads; pad++) {
+            int row = cellRow[padCell[pad]];
+            int col = cellCol[padCell[pad]];
+            int[][] moves = row % 2 == 0 && col % 2 == 0 ? HoppersConfig.MOVES_EVEN : HoppersConfig.MOVES_ODD;
+            for (int[] move : moves) {
+                int toRow = row + move[0];
+                int toCol = col + move[1];
+                if (toRow < 0 || toRow >= nRows || toCol < 0 || toCol >= nCols) {
+                    continue;
+                }
+                int overPad = padOf[(row + toRow) / 2 * nCols + (col + toCol) / 2];
+                int toPad = padOf[toRow * nCols + toCol];
+                if (overPad < 0 || toPad < 0) {
+                    continue;
+                }
+                from[nJumps] = pad;
+                over[nJumps] = overPad;
+                to[nJumps] = toPad;
+                touching[pad]++;
+                touching[overPad]++;
+                touching[toPad]++;
+                nJumps++;
+            }
+        }
+        this.jumpFrom = Arrays.copyOf(from, nJumps);
+        this.jumpOver = Arrays.copyOf(over, nJumps);
+        this.jumpTo = Arrays.copyOf(to, nJumps);
+        this.jumpsAt = new int[nPads][];
+        for (int pad = 0; pad < nPads; pad++) {
+            jumpsAt[pad] = new int[touching[pad]];
+            touching[pad] = 0;
+        }
+        for (int jump = 0; jump < nJumps; jump++) {
+            jumpsAt[jumpFrom[jump]][touching[jumpFrom[jump]]++] = jump;
+            jumpsAt[jumpOver[jump]][touching[jumpOver[jump]]++] = jump;
+            jumpsAt[jumpTo[jump]][touching[jumpTo[jump]]++] = jump;
+        }
+        this.symmetries = null;
+    }
+
+    /**
+     * Constructs the version of a board whose configurations are reduced by symmetry.
+     *
+     * @param plain the board that tells symmetric configurations apart
+     */
+    private HoppersBoard(HoppersBoard plain) {
+        this.nRows = plain.nRows;
+        this.nCols = plain.nCols;
+        this.zobrist = plain.zobrist;
+        this.padKeys = plain.padKeys;
+        this.padOf = plain.padOf;
+        this.padCell = plain.padCell;
+        this.jumpFrom = plain.jumpFrom;
+        this.jumpOver = plain.jumpOver;
+        this.jumpTo = plain.jumpTo;
+        this.jumpsAt = plain.jumpsAt;
+        this.cellRow = plain.cellRow;
+        this.cellCol = plain.cellCol;
+        this.symmetries = plain.findSymmetries();
+        this.symmetricBoard = this;
+    }
+
+    /**
+     * Gets the version of this board where configurations that are rotations or reflections
+     * of each other are the same state. Configurations on it turn themselves into the least
+     * of their symmetric images after every jump, so a search started from one never tells
+     * two of those apart.
+     *
+     * @return the symmetric board
+     */
+    public synchronized HoppersBoard symmetric() {
+        if (symmetricBoard == null) {
+            symmetricBoard = new HoppersBoard(this);
+        }
+        return symmetricBoard;
+    }
+
+    /**
+     * Checks if configurations on this board are reduced by symmetry.
+     *
+     * @return true for a symmetric board
+     */
+    public boolean isSymmetric() {
+        return symmetries != null;
+    }
+
+    /**
+     * Gets the rotations and reflections that map the board onto itself, other than the
+     * identity. The arrays are shared and must not be changed.
+     *
+     * @return for every symmetry, the pad each pad goes to
+     */
+    int[][] symmetries() {
+        return symmetries;
+    }
+
+    /**
+     * Finds the rotations and reflections of the grid that map lily pads onto lily pads
+     * and keep the jumps the same. A frog on a pad with an even row and column can also jump
+     * straight, and one on any other pad only diagonally, so a symmetry has to keep those
+     * apart too; on a grid with an even number of rows, flipping it upside down does not.
+     * Turning the grid a quarter only fits a square one.
+     *
+     * @return for every symmetry, the pad each pad goes to
+     */
+    private int[][] findSymmetries() {
+        int lastRow = nRows - 1;
+        int lastCol = nCols - 1;
+        int nTransforms = nRows == nCols ? 8 : 4;
+        int[][] found = new int[nTransforms - 1][];
+        int nFound = 0;
+        for (int transform = 1; transform < nTransforms; transform++) {
+            int[] image = new int[padCell.length];
+            for (int pad = 0; pad < padCell.length && image != null; pad++) {
+                int row = cellRow[padCell[pad]];
+                int col = cellCol[padCell[pad]];
+                // mirror left to right, upside down, both, then about each diagonal and a quarter turn either way
+                int toRow = switch (transform) {
+                    case 1 -> row;
+                    case 2, 3 -> lastRow - row;
+                    case 4, 6 -> col;
+                    default -> lastCol - col;
+                };
+                int toCol = switch (transform) {
+                    case 1, 3 -> lastCol - col;
+                    case 2 -> col;
+                    case 4, 7 -> row;
+                    default -> lastRow - row;
+                };
+                int toPad = padOf[toRow * nCols + toCol];
+                boolean evenCell = row % 2 == 0 && col % 2 == 0;
+                if (toPad < 0 || evenCell != (toRow % 2 == 0 && toCol % 2 == 0)) {
+                    image = null;
+                } else {
+                    image[pad] = toPad;
+                }
+            }
+            if (image != null) {
+                found[nFound++] = image;
+            }
+        }
+        return Arrays.copyOf(found, nFound);
+    }
+
+    /**
+     * Gets the number of rows in the grid.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return nRows;
+    }
+
+    /**
+     * Gets the number of columns in the grid.
+     *
+     * @return the number of columns
+     */
+    public int getCols() {
+        return nCols;
+    }
+
+    /**
+     * Gets the row of a cell.
+     *
+     * @param cell the cell number, row * columns + column
+     * @return the row
+     */
+    public int rowOf(int cell) {
+        return cellRow[cell];
+    }
+
+    /**
+     * Gets the column of a cell.
+     *
+     * @param cell the cell number, row * columns + column
+     * @return the column
+     */
+    public int colOf(int cell) {
+        return cellCol[cell];
+    }
+
+    /**
+     * Gets the number of lily pads.
+     *
+     * @return the number of pads
+     */
+    public int getPadCount() {
+        return padCell.length;
+    }
+
+    /**
+     * Gets the pad on a cell.
+     *
+     * @param cell the cell number, row * columns + column
+     * @return the pad number, or -1 if the cell is water
+     */
+    public int padOf(int cell) {
+        return padOf[cell];
+    }
+
+    /**
+     * Gets the cell of a pad.
+     *
+     * @param pad the pad number
+     * @return the cell number, row * columns + column
+     */
+    public int padCell(int pad) {
+        return padCell[pad];
+    }
+
+    /**
+     * Gets the number of jumps from a pad over a pad onto a pad, whether or not a frog can make them.
+     *
+     * @return the number of jumps
+     */
+    public int getJumpCount() {
+        return jumpFrom.length;
+    }
+
+    /**
+     * Gets the pad a jump starts on.
+     *
+     * @param jump the jump number
+     * @return the pad number
+     */
+    public int jumpFrom(int jump) {
+        return jumpFrom[jump];
+    }
+
+    /**
+     * Gets the pad a jump passes over.
+     *
+     * @param jump the jump number
+     * @return the pad number
+     */
+    public int jumpOver(int jump) {
+        return jumpOver[jump];
+    }
+
+    /**
+     * Gets the pad a jump lands on.
+     *
+     * @param jump the jump number
+     * @return the pad number
+     */
+    public int jumpTo(int jump) {
+        return jumpTo[jump];
+    }
+
+    /**
+     * Gets the jumps whose legality depends on a pad, those that start on it, pass over it
+     * or land on it. The array is shared and must not be changed.
+     *
+     * @param pad the pad number
+     * @return the jump numbers
+     */
+    int[] jumpsAt(int pad) {
+        return jumpsAt[pad];
+    }
+
+    /**
+     * Gets the Zobrist key of a frog standing on a cell.
+     *
+     * @param cell the cell number, row * columns + column
+     * @param red  true for the red frog, false for a green one
+     * @return the key
+     */
+    public long zobrist(int cell, boolean red) {
+        return zobrist[cell * 2 + (red ? 1 : 0)];
+    }
+
+    /**
+     * Gets the Zobrist key of a frog standing on a pad, the same as that of its cell.
+     *
+     * @param pad the pad number
+     * @param red true for the red frog, false for a green one
+     * @return the key
+     */
+    long padKey(int pad, boolean red) {
+        return padKeys[pad * 2 + (red ? 1 : 0)];
+    }
+}
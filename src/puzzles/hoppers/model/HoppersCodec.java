@@ -0,0 +1,111 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.StateCodec;
+
+/**
+ * Encodes the HoppersConfigs of one puzzle as fixed-size records. Every lily pad
+ * takes two bits: empty, green frog or red frog. Water never changes, so it is
+ * taken from the template instead of being stored.
+ *
+ * @author the samosas
+ */
+public class HoppersCodec implements StateCodec {
+    private static final int EMPTY_BITS = 0;
+    private static final int GREEN_BITS = 1;
+    private static final int RED_BITS = 2;
+
+    private final HoppersBoard board;
+    private final char[][] water;
+    private final int[] padRows;
+    private final int[] padCols;
+
+    /**
+     * Constructs a codec for the puzzle a configuration belongs to.
+     *
+     * @param template any configuration of the puzzle
+     */
+    public HoppersCodec(HoppersConfig template) {
+        board = template.getBoard();
+        int rows = template.getRows();
+        int cols = template.getCols();
+        water = new char[rows][cols];
+        int pads = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                water[row][col] = template.getGrid(row, col) == '*' ? '*' : '.';
+                if (water[row][col] != '*') {
+                    pads++;
+                }
+            }
+        }
+        padRows = new int[pads];
+        padCols = new int[pads];
+        int pad = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (water[row][col] != '*') {
+                    padRows[pad] = row;
+                    padCols[pad] = col;
+                    pad++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of an encoded configuration.
+     *
+     * @return two bits per lily pad, rounded up to whole bytes
+     */
+    @Override
+    public int recordSize() {
+        return (padRows.length + 3) / 4;
+    }
+
+    /**
+     * Writes what is on every lily pad.
+     *
+     * @param config the HoppersConfig to encode
+     * @param dst    the array to write to
+     * @param offset where in the array the record starts
+     */
+    @Override
+    public void encode(Configuration config, byte[] dst, int offset) {
+        HoppersConfig hoppers = (HoppersConfig) config;
+        for (int i = 0; i < recordSize(); i++) {
+            dst[offset + i] = 0;
+        }
+        for (int pad = 0; pad < padRows.length; pad++) {
+            char frog = hoppers.getGrid(padRows[pad], padCols[pad]);
+            int bits = frog == 'G' ? GREEN_BITS : frog == 'R' ? RED_BITS : EMPTY_BITS;
+            dst[offset + pad / 4] |= (byte) (bits << (2 * (pad % 4)));
+        }
+    }
+
+    /**
+     * Rebuilds a HoppersConfig from what is on every lily pad.
+     *
+     * @param src    the array to read from
+     * @param offset where in the array the record starts
+     * @return the decoded HoppersConfig
+     */
+    @Override
+    public Configuration decode(byte[] src, int offset) {
+        char[][] grid = new char[water.length][];
+        for (int row = 0; row < water.length; row++) {
+            grid[row] = water[row].clone();
+        }
+        int numGreen = 0;
+        for (int pad = 0; pad < padRows.length; pad++) {
+            int bits = (src[offset + pad / 4] >>> (2 * (pad % 4))) & 3;
+            if (bits == GREEN_BITS) {
+                grid[padRows[pad]][padCols[pad]] = 'G';
+                numGreen++;
+            } else if (bits == RED_BITS) {
+                grid[padRows[pad]][padCols[pad]] = 'R';
+            }
+        }
+        return new HoppersConfig(board, grid, numGreen);
+    }
+}
@@ -1,6 +1,8 @@
 package puzzles.hoppers.model;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.LayeredConfiguration;
+import puzzles.common.solver.MutableConfiguration;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -8,32 +10,56 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
  * Represents a configuration of the Hoppers puzzle.
  * Implements the Configuration interface required by the common solver.
+ * The frogs are kept as bitboards over the lily pads of the {@link HoppersBoard}: one bit
+ * per pad for the green frogs and one for the red frog, so a jump is a few bit tests and
+ * three exclusive ors, and comparing two configurations compares a word or two.
+ * Every jump takes one green frog off the board, so configurations are layered by the
+ * number of empty pads and the solver only has to remember one layer at a time.
  *
  * @author the samosas
  */
 
 
-public class HoppersConfig implements Configuration{
+public class HoppersConfig implements MutableConfiguration, LayeredConfiguration {
     private static final char GREEN_FROG = 'G';
     private static final char RED_FROG = 'R';
     private static final char EMPTY_SPACE = '.';
     private static final char INVALID_SPACE = '*';
 
-    private static int nRows;
-    private static int nCols;
-    private char [][] grid;
+    /** the fixed parts of the puzzle, shared by all its configurations */
+    private final HoppersBoard board;
+    /**
+     * one bit per pad with a green frog on it, in the first half of the words, and one
+     * bit per pad with the red frog on it, in the second half
+     */
+    private final long[] frogs;
 
     private int numGreen;
-    private char selectedFrog;
+    /** the Zobrist key of the frogs on the grid, kept up to date by every jump */
+    private long key;
+    /**
+     * one bit for every jump of the board that a frog can make right now, worked out when
+     * first needed and kept up to date by jumps made in place
+     */
+    private long[] legal;
+    /**
+     * the legal jumps of the configuration this one is a neighbor of, until its own are
+     * derived from them by checking only the jumps that touch the three pads that changed
+     */
+    private long[] parentLegal;
+    /** the jump that made this configuration from the one {@link #parentLegal} belongs to */
+    private int parentJump;
 
-    private static final int[][] MOVES_EVEN = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}, {4, 0}, {-4, 0}, {0, -4},
+    static final int[][] MOVES_EVEN = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}, {4, 0}, {-4, 0}, {0, -4},
             {0, 4}};
-    private static final int[][] MOVES_ODD = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}};
+    static final int[][] MOVES_ODD = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}};
 
 
     /**
@@ -43,10 +69,11 @@ public class HoppersConfig implements Configuration{
      * @throws IOException if an I/O error occurs while reading the file
      */
     public HoppersConfig(String filename) throws IOException {
+        char[][] grid;
         try (BufferedReader in = new BufferedReader(new FileReader(filename))){
             String[] lineOne = in.readLine().split("\\s+");
-            nRows = Integer.parseInt(lineOne[0]);
-            nCols = Integer.parseInt(lineOne[1]);
+            int nRows = Integer.parseInt(lineOne[0]);
+            int nCols = Integer.parseInt(lineOne[1]);
             grid = new char[nRows][nCols];
 
             for (int i = 0; i < nRows; i++) {
@@ -54,12 +81,19 @@ public class HoppersConfig implements Configuration{
                 String[] chars = line.split("\\s+");
                 for (int j = 0; j < nCols; j++) {
                     grid[i][j] = chars[j].charAt(0);
-                    if (chars[j].charAt(0) == GREEN_FROG){
-                        numGreen++;
-                    }
                 }
             }
         }
+        boolean[] water = new boolean[grid.length * grid[0].length];
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid[row].length; col++) {
+                water[row * grid[row].length + col] = grid[row][col] == INVALID_SPACE;
+            }
+        }
+        this.board = new HoppersBoard(grid.length, grid[0].length, water);
+        this.frogs = bitboardsOf(board, grid);
+        this.numGreen = countGreen();
+        this.key = computeKey();
     }
 
     /**
@@ -72,31 +106,166 @@ public class HoppersConfig implements Configuration{
      * @param toCol    the ending column of the move
      */
     public HoppersConfig(HoppersConfig other, int fromRow, int fromCol, int toRow, int toCol){
+        this(other);
+
+        char frog = getGrid(fromRow, fromCol);
 
-        this.grid = new char[nRows][nCols];
-        this.numGreen = other.getNumGreen();
+        if((frog == GREEN_FROG || frog == RED_FROG) && isValidMove(toRow, toCol)) {
+            int nCols = board.getCols();
+            boolean red = frog == RED_FROG;
+            flip(board.padOf(fromRow * nCols + fromCol), red);
+            flip(board.padOf(toRow * nCols + toCol), red);
 
-        for (int row = 0; row < nRows; row++) {
-            System.arraycopy(other.grid[row], 0, grid[row], 0, nCols);
+            int jumpedRow = (fromRow + toRow) / 2;
+            int jumpedCol = (fromCol + toCol) / 2;
+
+            if (getGrid(jumpedRow, jumpedCol) == GREEN_FROG) {
+                flip(board.padOf(jumpedRow * nCols + jumpedCol), false);
+                numGreen--;
+            }
+            if (board.isSymmetric()) {
+                canonicalize();
+            }
         }
+    }
 
-        selectFrog(fromRow, fromCol);
+    /**
+     * Constructs a copy of a HoppersConfig object with its own frogs.
+     *
+     * @param other the original HoppersConfig object
+     */
+    private HoppersConfig(HoppersConfig other) {
+        this.board = other.board;
+        this.frogs = other.frogs.clone();
+        this.numGreen = other.numGreen;
+        this.key = other.key;
+    }
 
-        if(isValidMove(toRow, toCol)) {
-            this.grid[toRow][toCol] = selectedFrog;
-            this.grid[fromRow][fromCol] = EMPTY_SPACE;
+    /**
+     * Constructs the neighbor of a HoppersConfig object that one legal jump of the board
+     * leads to.
+     *
+     * @param other the original HoppersConfig object
+     * @param jump  the jump number
+     */
+    private HoppersConfig(HoppersConfig other, int jump) {
+        this(other);
+        int from = board.jumpFrom(jump);
+        boolean red = isSet(from, true);
+        flip(from, red);
+        flip(board.jumpTo(jump), red);
+        flip(board.jumpOver(jump), false);
+        numGreen--;
+        this.parentLegal = other.legal;
+        this.parentJump = jump;
+        if (board.isSymmetric()) {
+            canonicalize();
+        }
+    }
 
+    /**
+     * Constructs a HoppersConfig object from an already filled in grid, as done when
+     * decoding a stored configuration.
+     *
+     * @param board    the board of the puzzle
+     * @param grid     the grid of frogs and lily pads
+     * @param numGreen the number of green frogs on the grid
+     */
+    HoppersConfig(HoppersBoard board, char[][] grid, int numGreen){
+        this.board = board;
+        this.frogs = bitboardsOf(board, grid);
+        this.numGreen = numGreen;
+        this.key = computeKey();
+    }
 
-            int jumpedRow = (fromRow + toRow) / 2;
-            int jumpedCol = (fromCol + toCol) / 2;
+    /**
+     * Constructs a HoppersConfig object from bitboards that are already filled in.
+     *
+     * @param board    the board of the puzzle
+     * @param frogs    the green frog words followed by the red frog words
+     * @param numGreen the number of green frogs on them
+     */
+    private HoppersConfig(HoppersBoard board, long[] frogs, int numGreen) {
+        this.board = board;
+        this.frogs = frogs;
+        this.numGreen = numGreen;
+        this.key = computeKey();
+    }
 
+    /**
+     * Turns this configuration into the least of its images under the symmetries of the
+     * board, comparing the frog words in order. Every rotation or reflection of it ends up
+     * as the same bitboards, and so as equal configurations. The legal jumps of the parent
+     * no longer line up with the pads if the frogs were moved, so they are dropped then.
+     */
+    private void canonicalize() {
+        int half = frogs.length >>> 1;
+        long[] best = frogs;
+        long[] image = new long[frogs.length];
+        for (int[] symmetry : board.symmetries()) {
+            Arrays.fill(image, 0);
+            for (int word = 0; word < frogs.length; word++) {
+                int base = word < half ? 0 : half;
+                for (long bits = frogs[word]; bits != 0; bits &= bits - 1) {
+                    int to = symmetry[((word - base) << 6) + Long.numberOfTrailingZeros(bits)];
+                    image[base + (to >>> 6)] |= 1L << to;
+                }
+            }
+            if (Arrays.compare(image, best) < 0) {
+                long[] spare = best == frogs ? new long[frogs.length] : best;
+                best = image;
+                image = spare;
+            }
+        }
+        if (best != frogs) {
+            System.arraycopy(best, 0, frogs, 0, frogs.length);
+            key = computeKey();
+            parentLegal = null;
+        }
+    }
 
-            if (grid[jumpedRow][jumpedCol] != EMPTY_SPACE && grid[jumpedRow][jumpedCol] != RED_FROG &&
-                    grid[jumpedRow][jumpedCol] != INVALID_SPACE) {
-                this.grid[jumpedRow][jumpedCol] = EMPTY_SPACE;
-                numGreen--;
+    /**
+     * Builds the bitboards of the frogs on a grid.
+     *
+     * @param board the board of the puzzle
+     * @param grid  the grid of frogs and lily pads
+     * @return the green frog words followed by the red frog words
+     */
+    private static long[] bitboardsOf(HoppersBoard board, char[][] grid) {
+        int words = (board.getPadCount() + 63) >>> 6;
+        long[] frogs = new long[words * 2];
+        for (int pad = 0; pad < board.getPadCount(); pad++) {
+            int cell = board.padCell(pad);
+            char c = grid[board.rowOf(cell)][board.colOf(cell)];
+            if (c == GREEN_FROG) {
+                frogs[pad >>> 6] |= 1L << pad;
+            } else if (c == RED_FROG) {
+                frogs[words + (pad >>> 6)] |= 1L << pad;
             }
         }
+        return frogs;
+    }
+
+    /**
+     * Checks if a frog of a colour is on a pad.
+     *
+     * @param pad the pad number
+     * @param red true for the red frog, false for a green one
+     * @return true if it is there
+     */
+    private boolean isSet(int pad, boolean red) {
+        return (frogs[(red ? frogs.length >>> 1 : 0) + (pad >>> 6)] & (1L << pad)) != 0;
+    }
+
+    /**
+     * Puts a frog of a colour on a pad, or takes it off if it is there, and updates the key.
+     *
+     * @param pad the pad number
+     * @param red true for the red frog, false for a green one
+     */
+    private void flip(int pad, boolean red) {
+        frogs[(red ? frogs.length >>> 1 : 0) + (pad >>> 6)] ^= 1L << pad;
+        key ^= board.padKey(pad, red);
     }
 
     /**
@@ -107,7 +276,7 @@ public class HoppersConfig implements Configuration{
      * @return if movement happens inbounds
      */
     public boolean isValidMove(int row, int col){
-        return row >= 0 && row < nRows && col >= 0 && col < nCols && grid[row][col] == EMPTY_SPACE;
+        return row >= 0 && row < board.getRows() && col >= 0 && col < board.getCols() && getGrid(row, col) == EMPTY_SPACE;
     }
 
 
@@ -133,7 +302,7 @@ public class HoppersConfig implements Configuration{
      * @return number of moves that can be made from that spot
      */
     public int numPossibleMoves(int row, int col) {
-        if (row % 2 == 0 && col % 2 == 0 && grid[row][col] != EMPTY_SPACE && grid[row][col] != INVALID_SPACE)
+        if (row % 2 == 0 && col % 2 == 0 && getGrid(row, col) != EMPTY_SPACE && getGrid(row, col) != INVALID_SPACE)
             return 8;
         else
             return 4;
@@ -141,18 +310,15 @@ public class HoppersConfig implements Configuration{
     }
 
     /**
-     * Selects a frog at the specified position.
+     * Checks if there is a frog at the specified position.
      *
-     * @param row the row of the frog
-     * @param col the column of the frog
-     * @return true if a frog is successfully selected, false otherwise
+     * @param row the row of the position
+     * @param col the column of the position
+     * @return true if a green or red frog is there, false otherwise
      */
-    public boolean selectFrog(int row, int col){
-        if(col < 0 || row < 0 || row >= nRows ||col >= nCols || grid[row][col] == EMPTY_SPACE || grid[row][col] == INVALID_SPACE)
-            return false;
-
-        selectedFrog = grid[row][col];
-        return true;
+    public boolean hasFrog(int row, int col){
+        return row >= 0 && col >= 0 && row < board.getRows() && col < board.getCols() &&
+                (getGrid(row, col) == GREEN_FROG || getGrid(row, col) == RED_FROG);
     }
 
 
@@ -165,13 +331,96 @@ public class HoppersConfig implements Configuration{
         return numGreen;
     }
 
+    /**
+     * Gets the layer of the configuration, the number of empty lily pads. Every jump empties
+     * one more pad, so every neighbor is in the next layer.
+     *
+     * @return the number of empty pads
+     */
+    @Override
+    public int getLayer() {
+        return board.getPadCount() - numGreen - 1;
+    }
+
+    /**
+     * Gets the pad the red frog is on.
+     *
+     * @return the pad number, or -1 if there is no red frog
+     */
+    public int getRedPad() {
+        int half = frogs.length >>> 1;
+        for (int word = 0; word < half; word++) {
+            if (frogs[half + word] != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(frogs[half + word]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Combines a value of every pad with a frog on it, green or red, by exclusive or.
+     *
+     * @param padValues a value for every pad of the board
+     * @return the exclusive or of the values of the occupied pads
+     */
+    public long xorOverFrogs(long[] padValues) {
+        int half = frogs.length >>> 1;
+        long result = 0;
+        for (int word = 0; word < half; word++) {
+            for (long bits = frogs[word] | frogs[half + word]; bits != 0; bits &= bits - 1) {
+                result ^= padValues[(word << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if any frog, green or red, is on one of a set of pads.
+     *
+     * @param padMask one bit per pad, in the word layout of one colour of the bitboards
+     * @return true if a frog is on a pad of the set
+     */
+    public boolean anyFrogOn(long[] padMask) {
+        int half = frogs.length >>> 1;
+        for (int word = 0; word < half; word++) {
+            if (((frogs[word] | frogs[half + word]) & padMask[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a green frog is on one of a set of pads.
+     *
+     * @param padMask one bit per pad, in the word layout of one colour of the bitboards
+     * @return true if a green frog is on a pad of the set
+     */
+    public boolean anyGreenOn(long[] padMask) {
+        for (int word = 0; word < frogs.length >>> 1; word++) {
+            if ((frogs[word] & padMask[word]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the board this configuration is played on.
+     *
+     * @return the board
+     */
+    public HoppersBoard getBoard() {
+        return board;
+    }
+
     /**
      * Gets the number of rows in the grid.
      *
      * @return the number of rows
      */
     public int getRows(){
-        return nRows;
+        return board.getRows();
     }
 
     /**
@@ -180,7 +429,7 @@ public class HoppersConfig implements Configuration{
      * @return the number of columns
      */
     public int getCols() {
-        return nCols;
+        return board.getCols();
     }
 
 
@@ -188,9 +437,9 @@ public class HoppersConfig implements Configuration{
      * Prints the current configuration of the board.
      */
     public void printBoard(){
-        for (int i = 0; i < nRows; i++) {
-            for (int j = 0; j < nCols; j++) {
-                System.out.print(grid[i][j] + " ");
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                System.out.print(getGrid(i, j) + " ");
             }
             System.out.println();
         }
@@ -205,7 +454,11 @@ public class HoppersConfig implements Configuration{
      * @return the character at the specified position
      */
     public char getGrid(int row, int col){
-        return grid[row][col];
+        int pad = board.padOf(row * board.getCols() + col);
+        if (pad < 0) {
+            return INVALID_SPACE;
+        }
+        return isSet(pad, false) ? GREEN_FROG : isSet(pad, true) ? RED_FROG : EMPTY_SPACE;
     }
 
     /**
@@ -229,72 +482,319 @@ public class HoppersConfig implements Configuration{
      */
     public Collection<Configuration> generateNeighbors(int row, int col){
         Collection<Configuration> neighbors = new ArrayList<>();
-        int newRow;
-        int newCol;
+        int pad = board.padOf(row * board.getCols() + col);
+        if (pad < 0) {
+            return neighbors;
+        }
+        // the jumps touching a pad are listed in order, so those starting on it come in move table order
+        for (int jump : board.jumpsAt(pad)) {
+            if (board.jumpFrom(jump) == pad && canJump(jump)) {
+                neighbors.add(new HoppersConfig(this, jump));
+            }
+        }
+        return neighbors;
+    }
 
-        int[][] moves;
-        int numMoves = numPossibleMoves(row, col);
 
-        if(numMoves == 4)
-            moves = MOVES_ODD;
-        else if (numMoves == 8)
-            moves = MOVES_EVEN;
-        else
-            moves = new int[0][];
+    /**
+     * Gets all possible neighboring configurations for the current configuration.
+     * Neighbors are generated based on valid moves of frogs in the grid.
+     *
+     * @return a collection of neighboring configurations
+     */
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        Collection<Configuration> neighbors = new ArrayList<>();
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Passes every neighboring configuration to the consumer as it is made, without
+     * collecting them first. Each neighbor keeps this configuration's legal jumps, and
+     * works out its own from them only if it is expanded in turn.
+     *
+     * @param consumer the consumer that receives each neighbor
+     */
+    @Override
+    public void forEachNeighbor(Consumer<Configuration> consumer) {
+        long[] ownLegal = getLegal();
+        for (int word = 0; word < ownLegal.length; word++) {
+            for (long bits = ownLegal[word]; bits != 0; bits &= bits - 1) {
+                consumer.accept(new HoppersConfig(this, (word << 6) + Long.numberOfTrailingZeros(bits)));
+            }
+        }
+        // the neighbors hold on to the jumps for as long as they need them, this configuration is done with them
+        legal = null;
+    }
+
+    /**
+     * Gets the legal jumps, deriving them from the parent's or checking every jump of the
+     * board the first time.
+     *
+     * @return one bit for every jump, set if a frog can make it
+     */
+    private long[] getLegal() {
+        long[] result = legal;
+        if (result != null) {
+            return result;
+        }
+        if (parentLegal != null) {
+            result = parentLegal.clone();
+            recheckJumps(result, board.jumpFrom(parentJump), board.jumpOver(parentJump), board.jumpTo(parentJump));
+            parentLegal = null;
+        } else {
+            result = new long[(board.getJumpCount() + 63) >>> 6];
+            for (int jump = 0; jump < board.getJumpCount(); jump++) {
+                if (canJump(jump)) {
+                    result[jump >>> 6] |= 1L << jump;
+                }
+            }
+        }
+        legal = result;
+        return result;
+    }
+
+    /**
+     * Brings the legal jumps up to date after a jump, made or taken back, changed three pads.
+     * Only the jumps that start on, pass over or land on one of them can have changed.
+     *
+     * @param legal the bits to update
+     * @param from  the pad the jump started on
+     * @param over  the pad it passed over
+     * @param to    the pad it landed on
+     */
+    private void recheckJumps(long[] legal, int from, int over, int to) {
+        recheckJumps(legal, from);
+        recheckJumps(legal, over);
+        recheckJumps(legal, to);
+    }
 
+    /**
+     * Checks again every jump whose legality depends on one pad.
+     *
+     * @param legal the bits to update
+     * @param pad   the pad that changed
+     */
+    private void recheckJumps(long[] legal, int pad) {
+        for (int jump : board.jumpsAt(pad)) {
+            if (canJump(jump)) {
+                legal[jump >>> 6] |= 1L << jump;
+            } else {
+                legal[jump >>> 6] &= ~(1L << jump);
+            }
+        }
+    }
 
-        for(int[] move : moves){
-            newRow = row + move[0];
-            newCol = col + move[1];
+    /**
+     * Checks if a frog can make a jump of the board: there is a frog on its start, a green
+     * frog to jump over and an empty pad to land on.
+     *
+     * @param jump the jump number
+     * @return true if the jump is legal
+     */
+    private boolean canJump(int jump) {
+        int half = frogs.length >>> 1;
+        int over = board.jumpOver(jump);
+        int to = board.jumpTo(jump);
+        int from = board.jumpFrom(jump);
+        return (frogs[over >>> 6] & (1L << over)) != 0 &&
+                ((frogs[to >>> 6] | frogs[half + (to >>> 6)]) & (1L << to)) == 0 &&
+                ((frogs[from >>> 6] | frogs[half + (from >>> 6)]) & (1L << from)) != 0;
+    }
 
-            int jumpedRow = (row+ newRow) / 2;
-            int jumpedCol = (col + newCol) / 2;
 
-            if(isValidMove(newRow, newCol) && grid[newRow][newCol] == EMPTY_SPACE &&
-                    grid[jumpedRow][jumpedCol] != RED_FROG && grid[jumpedRow][jumpedCol] == GREEN_FROG){
 
-                if (Math.abs(row - newRow) == 2 && Math.abs(col - newCol) == 2) {
-                    neighbors.add(new HoppersConfig(this, row, col, newRow, newCol));
-                }
-                if (row == newRow && Math.abs(col - newCol) == 4) {
-                    neighbors.add(new HoppersConfig(this, row, col, newRow, newCol));
-                }
-                if (Math.abs(row - newRow) == 4 && col == newCol) {
-                    neighbors.add(new HoppersConfig(this, row, col, newRow, newCol));
-                }
+    /**
+     * Gets the most moves a configuration can have, eight jumps for every frog.
+     *
+     * @return the largest possible number of moves
+     */
+    @Override
+    public int maxMoves() {
+        int frogCount = 0;
+        for (long word : frogs) {
+            frogCount += Long.bitCount(word);
+        }
+        return MOVES_EVEN.length * frogCount;
+    }
+
+    /**
+     * Lists every legal jump. A move is stored as the cell the frog starts on in the upper
+     * 16 bits and the cell it lands on in the lower 16 bits, where a cell is row * columns + column.
+     *
+     * @param moves the buffer to fill
+     * @return the number of moves
+     */
+    @Override
+    public int generateMoves(int[] moves) {
+        long[] bits = getLegal();
+        int count = 0;
+        for (int word = 0; word < bits.length; word++) {
+            for (long rest = bits[word]; rest != 0; rest &= rest - 1) {
+                int jump = (word << 6) + Long.numberOfTrailingZeros(rest);
+                moves[count++] = (board.padCell(board.jumpFrom(jump)) << 16) | board.padCell(board.jumpTo(jump));
             }
         }
-        return neighbors;
+        return count;
     }
 
+    /**
+     * Makes a jump in place, removing the green frog that is jumped over. A configuration on
+     * a symmetric board is left as it lands rather than made canonical, so that the move can
+     * still be taken back.
+     *
+     * @param move a move from {@link #generateMoves(int[])}
+     */
+    @Override
+    public void makeMove(int move) {
+        int from = board.padOf(move >>> 16);
+        int to = board.padOf(move & 0xFFFF);
+        int over = board.padOf(jumpedCell(move >>> 16, move & 0xFFFF));
+        boolean red = isSet(from, true);
+        flip(from, red);
+        flip(to, red);
+        flip(over, false);
+        numGreen--;
+        if (legal != null) {
+            recheckJumps(legal, from, over, to);
+        }
+    }
 
     /**
-     * Gets all possible neighboring configurations for the current configuration.
-     * Neighbors are generated based on valid moves of frogs in the grid.
+     * Takes a jump back, putting the jumped green frog back on its pad.
      *
-     * @return a collection of neighboring configurations
+     * @param move the move that was made
      */
     @Override
-    public Collection<Configuration> getNeighbors() {
-        Collection<Configuration> neighbors = new ArrayList<>();
+    public void unmakeMove(int move) {
+        int from = board.padOf(move >>> 16);
+        int to = board.padOf(move & 0xFFFF);
+        int over = board.padOf(jumpedCell(move >>> 16, move & 0xFFFF));
+        boolean red = isSet(to, true);
+        flip(to, red);
+        flip(from, red);
+        flip(over, false);
+        numGreen++;
+        if (legal != null) {
+            recheckJumps(legal, from, over, to);
+        }
+    }
+
+    /**
+     * Makes a copy of this configuration with its own frogs.
+     *
+     * @return the copy
+     */
+    @Override
+    public HoppersConfig copy() {
+        HoppersConfig result = new HoppersConfig(this);
+        result.legal = legal == null ? null : legal.clone();
+        return result;
+    }
+
+    /**
+     * Gets the canonical form of this configuration: the least of its rotations and
+     * reflections, on the symmetric version of its board. Its neighbors are canonical too,
+     * so a search started from it never tells apart two states that are mirror images of
+     * each other. {@link #restoreOrientation(HoppersConfig, List)} turns a path found this way
+     * back into one the frogs can actually take.
+     *
+     * @return the canonical configuration, on the symmetric version of this board
+     */
+    public HoppersConfig canonicalForm() {
+        HoppersConfig result = new HoppersConfig(board.symmetric(), frogs.clone(), numGreen);
+        result.canonicalize();
+        return result;
+    }
 
-        for(int row = 0; row < nRows; row++){
-            for(int col = 0; col < nCols; col++){
-                if(grid[row][col] == RED_FROG || grid[row][col] == GREEN_FROG){
-                    selectedFrog = grid[row][col];
-                    Collection<Configuration> allNeighbors = generateNeighbors(row, col);
-                    neighbors.addAll(allNeighbors);
+    /**
+     * Rebuilds a path found from a canonical configuration as a path from the real one, by
+     * following at every step the neighbor with the same canonical form.
+     *
+     * @param start the configuration the search started from
+     * @param path  the path of canonical configurations, starting with the canonical form of start
+     * @return the same path in the orientation of start, or null if path is null
+     */
+    public static List<Configuration> restoreOrientation(HoppersConfig start, List<Configuration> path) {
+        if (path == null) {
+            return null;
+        }
+        List<Configuration> restored = new ArrayList<>();
+        HoppersConfig current = start;
+        restored.add(current);
+        for (int i = 1; i < path.size(); i++) {
+            HoppersConfig target = (HoppersConfig) path.get(i);
+            HoppersConfig next = null;
+            for (Configuration neighbor : current.getNeighbors()) {
+                if (((HoppersConfig) neighbor).canonicalForm().equals(target)) {
+                    next = (HoppersConfig) neighbor;
+                    break;
                 }
             }
+            if (next == null) {
+                throw new IllegalArgumentException("Step " + i + " of the path does not follow from the one before");
+            }
+            restored.add(next);
+            current = next;
         }
-        return neighbors;
+        return restored;
     }
 
+    /**
+     * Gets the cell halfway between the start and end of a jump.
+     *
+     * @param from the cell the jump starts on
+     * @param to   the cell the jump lands on
+     * @return the cell of the frog being jumped over
+     */
+    private int jumpedCell(int from, int to) {
+        return ((board.rowOf(from) + board.rowOf(to)) / 2) * board.getCols() + (board.colOf(from) + board.colOf(to)) / 2;
+    }
 
+    /**
+     * Counts the green frogs on the bitboards.
+     *
+     * @return the number of green frogs
+     */
+    private int countGreen() {
+        int result = 0;
+        for (int word = 0; word < frogs.length >>> 1; word++) {
+            result += Long.bitCount(frogs[word]);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the key of the frogs on the grid from scratch.
+     *
+     * @return the Zobrist key
+     */
+    private long computeKey() {
+        long result = 0;
+        for (int pad = 0; pad < board.getPadCount(); pad++) {
+            if (isSet(pad, false)) {
+                result ^= board.padKey(pad, false);
+            } else if (isSet(pad, true)) {
+                result ^= board.padKey(pad, true);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the 64-bit Zobrist key of this configuration. Equal configurations have equal keys,
+     * and different ones almost never do.
+     *
+     * @return the key
+     */
+    public long getKey() {
+        return key;
+    }
 
     /**
      * Indicates whether some other object is "equal to" this one.
-     * This method compares two HoppersConfig objects based on their grid configurations.
+     * This method compares two HoppersConfig objects based on their bitboards.
      *
      * @param other the reference object with which to compare
      * @return true if this object is the same as the other object, false otherwise
@@ -304,19 +804,19 @@ public class HoppersConfig implements Configuration{
         boolean result = false;
         if (other instanceof HoppersConfig){
             HoppersConfig otherConfig = (HoppersConfig) other;
-            result = Arrays.deepEquals(this.grid, otherConfig.grid);
+            result = this.key == otherConfig.key && Arrays.equals(this.frogs, otherConfig.frogs);
         }
         return result;
     }
 
     /**
      * Returns a hash code value for the object.
-     * This method generates a hash code based on the grid configuration of the HoppersConfig object.
+     * This method folds the Zobrist key of the HoppersConfig object into an int.
      *
      * @return a hash code value for this object
      */
     @Override
-    public int hashCode() { return Arrays.deepHashCode(this.grid); }
+    public int hashCode() { return (int) (key ^ (key >>> 32)); }
 
 
     /**
@@ -328,12 +828,12 @@ public class HoppersConfig implements Configuration{
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < nRows; i++) {
-            for (int j = 0; j < nCols; j++) {
-                sb.append(grid[i][j]).append( " ");
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                sb.append(getGrid(i, j)).append( " ");
             }
             sb.append("\n");
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+}
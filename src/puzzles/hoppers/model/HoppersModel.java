@@ -19,21 +19,15 @@ public class HoppersModel {
     /** the current configuration */
     private HoppersConfig currentConfig;
 
+    /** the position of the frog the player has selected */
     private int selectedFrogRow;
     private int selectedFrogCol;
-    private int greenFrogs;
-
-    private static int nRows;
-    private static int nCols;
 
     /**
      * Gets the current config that's being used
      * @return the current config
      */
     public HoppersConfig getCurrentConfig(){
-        nRows = currentConfig.getRows();
-        nCols = currentConfig.getCols();
-        greenFrogs = currentConfig.getNumGreen();
         return currentConfig;
     }
 
@@ -62,7 +56,7 @@ public class HoppersModel {
      * @return true if valid and false if not
      */
     private boolean isValidPosition(int row, int col){
-        return row >= 0 && row < nRows && col >= 0 && col < nCols;
+        return row >= 0 && row < currentConfig.getRows() && col >= 0 && col < currentConfig.getCols();
     }
 
     /**
@@ -76,7 +70,7 @@ public class HoppersModel {
             selectedFrogRow = row;
             selectedFrogCol = col;
         }
-        return this.currentConfig.selectFrog(row, col);
+        return this.currentConfig.hasFrog(row, col);
     }
 
     /**
@@ -2,9 +2,10 @@ package puzzles.hoppers.ptui;
 
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
 import puzzles.hoppers.model.HoppersConfig;
 import puzzles.hoppers.model.HoppersModel;
+import puzzles.hoppers.solver.HoppersDepthFirstSolver;
+import puzzles.hoppers.solver.HoppersPruner;
 
 import java.io.IOException;
 import java.util.*;
@@ -168,8 +169,15 @@ public class HoppersPTUI implements Observer<HoppersModel, String> {
                     }
                 } else if (words[0].startsWith("h"))
                 {
-                    List<Configuration> solution = Solver.solve(model.getCurrentConfig());
-                    if(solution != null && solution.size() > 1){
+                    // every solution takes one jump per green frog, so the first one depth first is as good as any
+                    HoppersConfig current = model.getCurrentConfig();
+                    HoppersPruner pruner = new HoppersPruner(current);
+                    List<Configuration> solution = pruner.isUnsolvable(current) ? null
+                            : new HoppersDepthFirstSolver(pruner).solve(current).getPath();
+                    if (solution == null && !current.isSolution()) {
+                        System.out.println("Unsolvable");
+                    }
+                    else if(solution != null && solution.size() > 1){
 
                         System.out.println("Next step!");
                         model.setCurrentConfig((HoppersConfig) solution.get(1));
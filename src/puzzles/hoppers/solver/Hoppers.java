@@ -32,10 +32,13 @@ public class Hoppers {
                 System.out.println("File: " + args[0]);
                 System.out.print(hoppersConfig);
 
-                List<Configuration> solution = Solver.solve(hoppersConfig);
+                // parity and reach rule out some puzzles before any search
+                HoppersPruner pruner = new HoppersPruner(hoppersConfig);
+                List<Configuration> solution = pruner.isUnsolvable(hoppersConfig) ? null : Solver.solve(hoppersConfig, pruner);
                 if(solution != null){
                     System.out.println("Total configs: " +  Solver.getTotalConfigs());
                     System.out.println("Unique configs: " + Solver.getUniqueConfigs());
+                    System.out.println("Pruned configs: " + pruner.getPruned());
 
                     for (int i = 0; i < solution.size(); i++) {
                         System.out.println("Step " + i + ": \n" + solution.get(i));
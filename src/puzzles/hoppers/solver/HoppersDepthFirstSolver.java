@@ -0,0 +1,249 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Pruner;
+import puzzles.common.solver.SearchEngine;
+import puzzles.common.solver.SolverResult;
+import puzzles.common.solver.SolverStats;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A depth-first solver for Hoppers. Every jump takes one green frog off the board, so every
+ * solution has as many jumps as there are green frogs, and the first one a depth-first
+ * search finds is as short as any breadth-first one. The search makes and takes back jumps on
+ * a single copy of the first configuration, and remembers only the configurations it has
+ * proven cannot be solved, as their 64-bit Zobrist keys in an open-addressing set of longs,
+ * so reaching one again by another order of jumps costs a lookup. Two different
+ * configurations with the same key would make the second one count as dead as well; with
+ * 64-bit keys that does not happen on any puzzle small enough to search.
+ * <p>
+ * The path found is checked before it is returned: every step has to be a neighbor of the
+ * one before it and the last one a solution.
+ *
+ * @author the samosas
+ */
+public class HoppersDepthFirstSolver implements SearchEngine {
+    private final Pruner pruner;
+
+    /**
+     * Creates a solver that searches every configuration.
+     */
+    public HoppersDepthFirstSolver() {
+        this(Pruner.NONE);
+    }
+
+    /**
+     * Creates a solver that drops the configurations a pruner rejects.
+     *
+     * @param pruner the test for dead ends, such as a {@link HoppersPruner}
+     */
+    public HoppersDepthFirstSolver(Pruner pruner) {
+        this.pruner = pruner;
+    }
+
+    /**
+     * Solves the puzzle starting from the given configuration.
+     *
+     * @param first the initial configuration, a HoppersConfig
+     * @return the result of the search, with the first solution path found, if any
+     * @throws IllegalArgumentException if the configuration is not a HoppersConfig
+     */
+    @Override
+    public SolverResult solve(Configuration first) {
+        if (!(first instanceof HoppersConfig start)) {
+            throw new IllegalArgumentException("Not a Hoppers configuration: " + first.getClass().getName());
+        }
+        Search search = new Search(start.copy());
+        search.recorder.phase("search");
+        boolean solved = search.run(0);
+        search.recorder.visited(search.dead.size());
+        if (!solved) {
+            return new SolverResult(null, search.totalConfigs, search.expanded, search.recorder.finish());
+        }
+
+        search.recorder.phase("path");
+        List<Configuration> path = new ArrayList<>();
+        HoppersConfig replay = start.copy();
+        path.add(replay.copy());
+        for (int depth = 0; depth < search.length; depth++) {
+            replay.makeMove(search.path[depth]);
+            path.add(replay.copy());
+        }
+        check(path);
+        return new SolverResult(path, search.totalConfigs, search.expanded, search.recorder.finish());
+    }
+
+    /**
+     * Checks that a path is a solution: every configuration is a neighbor of the one before
+     * it, and the last one is solved.
+     *
+     * @param path the path to check
+     * @throws IllegalStateException if it is not a solution
+     */
+    private static void check(List<Configuration> path) {
+        for (int step = 1; step < path.size(); step++) {
+            if (!path.get(step - 1).getNeighbors().contains(path.get(step))) {
+                throw new IllegalStateException("Step " + step + " is not a jump from the step before it");
+            }
+        }
+        if (!path.getLast().isSolution()) {
+            throw new IllegalStateException("The path does not end in a solution");
+        }
+    }
+
+    /**
+     * The state of one solve: the configuration being searched, the jumps on the current
+     * path, one move buffer per depth and the keys of the configurations known to be dead.
+     */
+    private class Search {
+        private final HoppersConfig state;
+        private final int[][] buffers;
+        private final int[] path;
+        private final LongSet dead = new LongSet();
+        private final SolverStats.Recorder recorder = new SolverStats.Recorder();
+        private long totalConfigs = 1;
+        private long expanded;
+        private int length;
+
+        Search(HoppersConfig state) {
+            this.state = state;
+            // every jump takes a green frog, so no path is longer than there are green frogs
+            this.buffers = new int[state.getNumGreen()][];
+            this.path = new int[state.getNumGreen()];
+        }
+
+        /**
+         * Searches depth first from the current state.
+         *
+         * @param depth the number of jumps made so far
+         * @return true if a solution was found, in which case the state is left on it
+         */
+        boolean run(int depth) {
+            if (state.isSolution()) {
+                length = depth;
+                return true;
+            }
+            if (depth == buffers.length) {
+                // no green frog is left, but the puzzle is not solved either
+                return false;
+            }
+            if (dead.contains(state.getKey())) {
+                recorder.duplicate();
+                return false;
+            }
+            if (depth > 0 && pruner.isDead(state)) {
+                recorder.pruned();
+                dead.add(state.getKey());
+                return false;
+            }
+            if (buffers[depth] == null) {
+                buffers[depth] = new int[state.maxMoves()];
+            }
+            int[] moves = buffers[depth];
+            int count = state.generateMoves(moves);
+            totalConfigs += count;
+            expanded++;
+            recorder.expanded(depth);
+            recorder.generated(count);
+            for (int i = 0; i < count; i++) {
+                state.makeMove(moves[i]);
+                path[depth] = moves[i];
+                if (run(depth + 1)) {
+                    return true;
+                }
+                state.unmakeMove(moves[i]);
+            }
+            dead.add(state.getKey());
+            return false;
+        }
+    }
+
+    /**
+     * A set of longs kept in an open-addressing table, with no object per entry. Zero marks an
+     * empty slot, so a zero key is kept in a flag of its own.
+     */
+    private static final class LongSet {
+        private long[] table = new long[1024];
+        private boolean hasZero;
+        private int size;
+
+        /**
+         * Checks if a key is in the set.
+         *
+         * @param key the key
+         * @return true if it was added before
+         */
+        boolean contains(long key) {
+            if (key == 0) {
+                return hasZero;
+            }
+            int mask = table.length - 1;
+            for (int slot = slot(key, mask); table[slot] != 0; slot = (slot + 1) & mask) {
+                if (table[slot] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Adds a key to the set.
+         *
+         * @param key the key
+         */
+        void add(long key) {
+            if (key == 0) {
+                size += hasZero ? 0 : 1;
+                hasZero = true;
+                return;
+            }
+            int mask = table.length - 1;
+            int slot = slot(key, mask);
+            while (table[slot] != 0) {
+                if (table[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+            if (++size * 2 > table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                mask = table.length - 1;
+                for (long entry : old) {
+                    if (entry != 0) {
+                        int to = slot(entry, mask);
+                        while (table[to] != 0) {
+                            to = (to + 1) & mask;
+                        }
+                        table[to] = entry;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the number of keys in the set.
+         *
+         * @return the number of keys
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Picks the first slot to look in for a key. Zobrist keys are random in every bit, so
+         * folding the two halves together is mixing enough.
+         *
+         * @param key  the key
+         * @param mask the table length less one
+         * @return the slot
+         */
+        private static int slot(long key, int mask) {
+            return (int) (key >>> 32 ^ key) & mask;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Pruner;
+import puzzles.hoppers.model.HoppersBoard;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops Hoppers configurations that can never get rid of all their green frogs. Like peg
+ * solitaire, the game has invariants that are worked out once from the jumps of the board:
+ * <ol>
+ *     <li>a frog only ever jumps to pads in its own class, the pads joined to its start by
+ *     jumps; so the red frog ends in its own class, and a green frog can only be taken by
+ *     a frog of a class that has a jump over the green one's class,</li>
+ *     <li>every weighting of the pads by 0 and 1 under which the three pads of any jump
+ *     add up to an even number keeps the parity of the weights under all frogs, since a
+ *     jump takes two frogs off two of those pads and puts one on the third.</li>
+ * </ol>
+ * The parity classes and the red frog's class never change, so they can only show that a
+ * puzzle is unsolvable from the start, which {@link #isUnsolvable(HoppersConfig)} checks
+ * without any search. The takers of a class do change, as frogs are taken, so
+ * {@link #isDead(Configuration)} checks those for every generated configuration.
+ * <p>
+ * Pagoda functions, the other classic peg solitaire bound, cannot prune here: they only
+ * ever show that a frog cannot reach a pad, and the red frog is allowed to finish where
+ * it stands.
+ *
+ * @author the samosas
+ */
+public class HoppersPruner implements Pruner {
+    private final HoppersBoard board;
+    /** the class of every pad, the pads joined to it by jumps */
+    private final int[] classOf;
+    /** the pads of every class, as one colour of the bitboards */
+    private final long[][] classPads;
+    /** for every class, the pads of all classes with a jump over it */
+    private final long[][] takerPads;
+    /** the parity weights of every pad, one bit per weighting */
+    private final long[] parities;
+    /** for every class, the sorted parity weights of its pads: where the red frog can finish */
+    private final long[][] finishes;
+    private final LongAdder pruned = new LongAdder();
+
+    /**
+     * Works out the invariants of the board of a puzzle.
+     *
+     * @param start the configuration the search will start from
+     */
+    public HoppersPruner(HoppersConfig start) {
+        this.board = start.getBoard();
+        int nPads = board.getPadCount();
+        int words = (nPads + 63) >>> 6;
+
+        // a frog never leaves the pads it can jump between, so join the two ends of every jump
+        int[] parent = new int[nPads];
+        for (int pad = 0; pad < nPads; pad++) {
+            parent[pad] = pad;
+        }
+        for (int jump = 0; jump < board.getJumpCount(); jump++) {
+            parent[find(parent, board.jumpFrom(jump))] = find(parent, board.jumpTo(jump));
+        }
+        this.classOf = new int[nPads];
+        int[] classOfRoot = new int[nPads];
+        Arrays.fill(classOfRoot, -1);
+        int nClasses = 0;
+        for (int pad = 0; pad < nPads; pad++) {
+            int root = find(parent, pad);
+            if (classOfRoot[root] < 0) {
+                classOfRoot[root] = nClasses++;
+            }
+            classOf[pad] = classOfRoot[root];
+        }
+        this.classPads = new long[nClasses][words];
+        for (int pad = 0; pad < nPads; pad++) {
+            classPads[classOf[pad]][pad >>> 6] |= 1L << pad;
+        }
+        this.takerPads = new long[nClasses][words];
+        for (int jump = 0; jump < board.getJumpCount(); jump++) {
+            long[] takers = takerPads[classOf[board.jumpOver(jump)]];
+            long[] pads = classPads[classOf[board.jumpFrom(jump)]];
+            for (int word = 0; word < words; word++) {
+                takers[word] |= pads[word];
+            }
+        }
+
+        this.parities = parityWeights(nPads);
+        this.finishes = new long[nClasses][];
+        int[] sizes = new int[nClasses];
+        for (int pad = 0; pad < nPads; pad++) {
+            sizes[classOf[pad]]++;
+        }
+        for (int c = 0; c < nClasses; c++) {
+            finishes[c] = new long[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int pad = 0; pad < nPads; pad++) {
+            finishes[classOf[pad]][sizes[classOf[pad]]++] = parities[pad];
+        }
+        for (long[] finish : finishes) {
+            Arrays.sort(finish);
+        }
+    }
+
+    /**
+     * Finds the root of a pad in a union-find forest, shortening the path as it goes.
+     *
+     * @param parent the parent of every pad
+     * @param pad    the pad number
+     * @return the root
+     */
+    private static int find(int[] parent, int pad) {
+        while (parent[pad] != pad) {
+            parent[pad] = parent[parent[pad]];
+            pad = parent[pad];
+        }
+        return pad;
+    }
+
+    /**
+     * Works out the weightings of the pads by 0 and 1 under which the three pads of every
+     * jump add up to an even number. They are the null space of the jumps over the field
+     * of two elements, found by Gauss-Jordan elimination; at most 64 of them are kept.
+     *
+     * @param nPads the number of pads
+     * @return for every pad, bit i set if the i-th weighting gives it a 1
+     */
+    private long[] parityWeights(int nPads) {
+        int words = (nPads + 63) >>> 6;
+        long[][] rows = new long[board.getJumpCount()][words];
+        for (int jump = 0; jump < rows.length; jump++) {
+            for (int pad : new int[]{board.jumpFrom(jump), board.jumpOver(jump), board.jumpTo(jump)}) {
+                rows[jump][pad >>> 6] ^= 1L << pad;
+            }
+        }
+        int[] pivotRow = new int[nPads];
+        Arrays.fill(pivotRow, -1);
+        int rank = 0;
+        for (int col = 0; col < nPads && rank < rows.length; col++) {
+            int found = rank;
+            while (found < rows.length && (rows[found][col >>> 6] & (1L << col)) == 0) {
+                found++;
+            }
+            if (found == rows.length) {
+                continue;
+            }
+            long[] row = rows[found];
+            rows[found] = rows[rank];
+            rows[rank] = row;
+            for (int other = 0; other < rows.length; other++) {
+                if (other != rank && (rows[other][col >>> 6] & (1L << col)) != 0) {
+                    for (int word = 0; word < words; word++) {
+                        rows[other][word] ^= row[word];
+                    }
+                }
+            }
+            pivotRow[col] = rank++;
+        }
+        // every free pad gives one weighting: 1 on it, and on every pivot pad whose row has it
+        long[] weights = new long[nPads];
+        int bit = 0;
+        for (int free = 0; free < nPads && bit < Long.SIZE; free++) {
+            if (pivotRow[free] >= 0) {
+                continue;
+            }
+            weights[free] |= 1L << bit;
+            for (int col = 0; col < nPads; col++) {
+                if (pivotRow[col] >= 0 && (rows[pivotRow[col]][free >>> 6] & (1L << free)) != 0) {
+                    weights[col] |= 1L << bit;
+                }
+            }
+            bit++;
+        }
+        return weights;
+    }
+
+    /**
+     * Checks if a configuration has green frogs that no frog left can ever take: some class
+     * still has a green frog, but no class with a jump over it has a frog.
+     *
+     * @param config the HoppersConfig to check
+     * @return true if it can never be solved
+     */
+    @Override
+    public boolean isDead(Configuration config) {
+        HoppersConfig hoppers = (HoppersConfig) config;
+        for (int c = 0; c < classPads.length; c++) {
+            if (hoppers.anyGreenOn(classPads[c]) && !hoppers.anyFrogOn(takerPads[c])) {
+                pruned.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a puzzle can be told unsolvable without searching it: the red frog has to
+     * end up alone on a pad of its own class whose parity weights are those of all the
+     * frogs now, and no class may be left with green frogs and nothing to take them.
+     *
+     * @param config the configuration to check
+     * @return true if it can never be solved
+     */
+    public boolean isUnsolvable(HoppersConfig config) {
+        if (config.isSolution()) {
+            return false;
+        }
+        int red = config.getRedPad();
+        if (red < 0 || Arrays.binarySearch(finishes[classOf[red]], config.xorOverFrogs(parities)) < 0) {
+            return true;
+        }
+        return isDead(config);
+    }
+
+    /**
+     * Gets the number of configurations this pruner has dropped so far.
+     *
+     * @return the number of dead configurations found
+     */
+    public long getPruned() {
+        return pruned.sum();
+    }
+
+    /**
+     * Gets the number of classes of pads a frog can move between.
+     *
+     * @return the number of classes
+     */
+    public int getClassCount() {
+        return classPads.length;
+    }
+}